@@ -0,0 +1,52 @@
+package com.ticketing.tickets.benchmark;
+
+import com.ticketing.tickets.TicketsApplication;
+import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.repository.TicketRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application without a web server for benchmarks that go through Spring beans. Every
+ * fork gets its own in-memory database, SQL logging is off, and the events API points at a closed
+ * port so the startup warm-up fails fast instead of calling the internet.
+ */
+final class BenchmarkApplication {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(TicketsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:hsqldb:mem:benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.ticketing.tickets=WARN",
+                        "--tickets.events.api-url=http://127.0.0.1:9/api/events",
+                        "--tickets.outbox.poll-interval-ms=3600000");
+    }
+
+    static List<Ticket> insertTickets(TicketRepository ticketRepository, int count) {
+        List<Ticket> saved = new ArrayList<>(count);
+        for (int from = 0; from < count; from += INSERT_BATCH) {
+            List<Ticket> batch = new ArrayList<>(INSERT_BATCH);
+            for (int i = from; i < Math.min(count, from + INSERT_BATCH); i++) {
+                Ticket ticket = new Ticket();
+                ticket.setEvent("Benchmark Event " + (i % 100));
+                ticket.setSeat("S" + i);
+                ticket.setPrice(new BigDecimal("49.90"));
+                batch.add(ticket);
+            }
+            saved.addAll(ticketRepository.insertAll(batch));
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ticketing.tickets.benchmark;
+
+import com.ticketing.tickets.entity.Booking;
+import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.exception.ResourceAlreadyExistsException;
+import com.ticketing.tickets.inventory.SeatInventory;
+import com.ticketing.tickets.repository.BookingRepository;
+import com.ticketing.tickets.repository.TicketRepository;
+import com.ticketing.tickets.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code BookingServiceImpl.saveBooking} with eight threads booking at once. With 4 tickets
+ * nearly every attempt loses the race and takes the conflict path. With 10,000 tickets most
+ * attempts win and insert a booking. A won booking is deleted and its seat released right away,
+ * so the pool never runs out during a long run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(8)
+@State(Scope.Benchmark)
+public class BookingBenchmark {
+
+    @Param({"4", "10000"})
+    private int tickets;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private BookingRepository bookingRepository;
+    private SeatInventory seatInventory;
+    private List<Ticket> pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        bookingService = context.getBean(BookingService.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        seatInventory = context.getBean(SeatInventory.class);
+        pool = BenchmarkApplication.insertTickets(context.getBean(TicketRepository.class), tickets);
+        pool.forEach(ticket -> seatInventory.register(ticket.getId()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean saveBooking() {
+        Ticket ticket = pool.get(ThreadLocalRandom.current().nextInt(pool.size()));
+        Booking booking = new Booking();
+        booking.setTicket(ticket);
+        booking.setUser("benchmark-user");
+        try {
+            // the unique ticket index allows one booking per seat
+            bookingRepository.deleteById(bookingService.saveBooking(booking).getId());
+            seatInventory.release(ticket.getId());
+            return true;
+        } catch (ResourceAlreadyExistsException e) {
+            return false;
+        }
+    }
+}
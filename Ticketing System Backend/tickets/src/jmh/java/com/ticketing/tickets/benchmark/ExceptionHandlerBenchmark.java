@@ -0,0 +1,64 @@
+package com.ticketing.tickets.benchmark;
+
+import com.ticketing.tickets.exception.GlobalExceptionHandler;
+import com.ticketing.tickets.exception.ResourceAlreadyExistsException;
+import com.ticketing.tickets.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Error responses from {@link GlobalExceptionHandler}, including the cost of creating the
+ * exception. Capturing the stack trace usually dominates that cost, so the exception is created
+ * {@code stackDepth} frames below the benchmark method. A real request adds roughly a hundred
+ * frames of servlet and Spring code. The handler's logger is switched off so the console does not
+ * end up in the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExceptionHandlerBenchmark {
+
+    @Param({"0", "100"})
+    private int stackDepth;
+
+    private GlobalExceptionHandler handler;
+    private long id;
+
+    @Setup
+    public void setUp() {
+        LoggingSystem.get(getClass().getClassLoader()).setLogLevel(GlobalExceptionHandler.class.getName(), LogLevel.OFF);
+        handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> notFound() {
+        return handler.handleResourceNotFoundException(
+                atDepth(stackDepth, () -> new ResourceNotFoundException("Ticket not found with id: " + id++)), null);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> bookingConflict() {
+        return handler.handleResourceAlreadyExistsException(
+                atDepth(stackDepth, () -> new ResourceAlreadyExistsException("Booking already exists for ticket ID: " + id++)), null);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> unexpectedError() {
+        return handler.handleGlobalException(
+                atDepth(stackDepth, () -> new IllegalStateException("Unexpected failure " + id++)), null);
+    }
+
+    private static <E extends Exception> E atDepth(int depth, Supplier<E> exception) {
+        return depth == 0 ? exception.get() : atDepth(depth - 1, exception);
+    }
+}
@@ -0,0 +1,45 @@
+package com.ticketing.tickets.benchmark;
+
+import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.repository.TicketRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TicketRepository.findAll()} as used by {@code GET /tickets}, against HSQLDB tables of
+ * 10k, 100k and 1M rows. Each call hydrates every row into a fresh persistence context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class RepositoryFindAllBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private TicketRepository ticketRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        ticketRepository = context.getBean(TicketRepository.class);
+        BenchmarkApplication.insertTickets(ticketRepository, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Ticket> findAll() {
+        return ticketRepository.findAll();
+    }
+}
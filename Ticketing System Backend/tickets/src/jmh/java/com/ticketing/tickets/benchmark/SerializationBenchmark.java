@@ -0,0 +1,64 @@
+package com.ticketing.tickets.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.entity.Booking;
+import com.ticketing.tickets.entity.Ticket;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost per object. Tickets use a plain {@link ObjectMapper}, as {@code saveTicketToS3}
+ * does when it writes the outbox payload and as the S3 read path does when it parses one.
+ * Bookings use a mapper built like Spring's, which has the java.time module that
+ * {@code bookingDate} needs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private final ObjectMapper ticketMapper = new ObjectMapper();
+    private final ObjectMapper bookingMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private Ticket ticket;
+    private Booking booking;
+    private String ticketJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ticket = new Ticket();
+        ticket.setId(123_456L);
+        ticket.setEvent("Summer Festival 2025");
+        ticket.setSeat("B12");
+        ticket.setPrice(new BigDecimal("149.90"));
+        booking = new Booking();
+        booking.setId(98_765L);
+        booking.setTicket(ticket);
+        booking.setUser("festival-goer");
+        booking.setBookingDate(LocalDateTime.of(2025, 6, 1, 10, 0));
+        ticketJson = ticketMapper.writeValueAsString(ticket);
+    }
+
+    @Benchmark
+    public String writeTicket() throws JsonProcessingException {
+        return ticketMapper.writeValueAsString(ticket);
+    }
+
+    @Benchmark
+    public Ticket readTicket() throws JsonProcessingException {
+        return ticketMapper.readValue(ticketJson, Ticket.class);
+    }
+
+    @Benchmark
+    public byte[] writeBooking() throws JsonProcessingException {
+        return bookingMapper.writeValueAsBytes(booking);
+    }
+}
@@ -1,8 +1,11 @@
 package com.ticketing.tickets.configuration;
 
+import com.ticketing.tickets.storage.S3MetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 
@@ -10,10 +13,13 @@ import software.amazon.awssdk.services.s3.S3Client;
 public class AwsConfig {
 
     @Bean
-    public S3Client amazonS3() {
+    public S3Client amazonS3(MeterRegistry meterRegistry) {
         return S3Client.builder()
                 .region(Region.US_EAST_1)
                 .credentialsProvider(EnvironmentVariableCredentialsProvider.create())
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .addExecutionInterceptor(new S3MetricsInterceptor(meterRegistry))
+                        .build())
                 .build();
     }
 }
@@ -0,0 +1,74 @@
+package com.ticketing.tickets.configuration;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the executors that run blocking S3 and HTTP calls outside the request thread.
+ * <p>
+ * By default these are pools of platform threads. With {@code spring.threads.virtual.enabled=true}
+ * on Java 21, Spring Boot serves requests and runs scheduled jobs on virtual threads. These
+ * executors then start virtual threads as well, so a call parked on I/O releases its carrier
+ * thread instead of holding an OS thread. The executors keep the same concurrency bounds in both
+ * modes.
+ */
+@Component
+@Log4j2
+public class BlockingTaskExecutors {
+
+    private final boolean virtual;
+
+    @Autowired
+    public BlockingTaskExecutors(Environment environment) {
+        this(Threading.VIRTUAL.isActive(environment));
+    }
+
+    public BlockingTaskExecutors(boolean virtual) {
+        this.virtual = virtual;
+        log.info("Blocking calls run on {} threads", virtual ? "virtual" : "platform");
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Runs at most {@code maxConcurrency} tasks at a time and queues the rest. Virtual threads are
+     * cheap, but the bound still matters: it keeps a fan-out within the client's connection pool.
+     */
+    public ExecutorService newBoundedExecutor(String name, int maxConcurrency) {
+        return new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory(name));
+    }
+
+    /**
+     * Hands every task to an idle thread or starts a new one. Idle virtual threads are not kept,
+     * so in virtual mode each task gets a fresh thread.
+     */
+    public ExecutorService newUnboundedExecutor(String name) {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, virtual ? 0L : 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory(name));
+    }
+
+    private ThreadFactory threadFactory(String name) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory();
+        }
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
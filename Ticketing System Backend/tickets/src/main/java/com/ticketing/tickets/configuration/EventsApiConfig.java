@@ -0,0 +1,111 @@
+package com.ticketing.tickets.configuration;
+
+import com.ticketing.tickets.resilience.Bulkhead;
+import com.ticketing.tickets.resilience.CircuitBreaker;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * HTTP clients and failure isolation for the external events API. Connections are pooled and kept
+ * alive, every phase of a request has a timeout, and calls are guarded by a circuit breaker and a
+ * bulkhead so a slow or failing API cannot tie up the request threads.
+ */
+@Configuration
+public class EventsApiConfig {
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient eventsHttpClient(@Value("${tickets.events.http.max-connections:50}") int maxConnections,
+                                                @Value("${tickets.events.http.connect-timeout:2s}") Duration connectTimeout,
+                                                @Value("${tickets.events.http.read-timeout:3s}") Duration readTimeout,
+                                                @Value("${tickets.events.http.pool-timeout:500ms}") Duration poolTimeout,
+                                                @Value("${tickets.events.http.keep-alive:30s}") Duration keepAlive) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        TimeValue keepAliveTime = TimeValue.ofMilliseconds(keepAlive.toMillis());
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeout.toMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> keepAliveTime)
+                .evictIdleConnections(keepAliveTime)
+                .evictExpiredConnections()
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient eventsHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(eventsHttpClient));
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider eventsConnectionProvider(@Value("${tickets.events.http.max-connections:50}") int maxConnections,
+                                                       @Value("${tickets.events.http.max-pending:1000}") int maxPending,
+                                                       @Value("${tickets.events.http.pool-timeout:500ms}") Duration poolTimeout,
+                                                       @Value("${tickets.events.http.keep-alive:30s}") Duration keepAlive) {
+        // the queue of requests waiting for a connection is bounded, so the non-blocking client
+        // sheds load the way the bulkhead does for the blocking one
+        return ConnectionProvider.builder("events-api")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxPending)
+                .pendingAcquireTimeout(poolTimeout)
+                .maxIdleTime(keepAlive)
+                .evictInBackground(keepAlive)
+                .build();
+    }
+
+    /**
+     * Non-blocking client for the reactive events gateway. Requests run on Reactor Netty's event
+     * loop, with the same connection and response timeouts as the blocking client.
+     */
+    @Bean
+    public WebClient eventsWebClient(WebClient.Builder webClientBuilder, ConnectionProvider eventsConnectionProvider,
+                                     @Value("${tickets.events.http.connect-timeout:2s}") Duration connectTimeout,
+                                     @Value("${tickets.events.http.read-timeout:3s}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.create(eventsConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return webClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+    }
+
+    @Bean
+    public CircuitBreaker eventsCircuitBreaker(@Value("${tickets.events.circuit-breaker.window-size:20}") int windowSize,
+                                               @Value("${tickets.events.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                               @Value("${tickets.events.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                               @Value("${tickets.events.circuit-breaker.open-duration:30s}") Duration openDuration,
+                                               @Value("${tickets.events.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        return new CircuitBreaker("events-api", windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls);
+    }
+
+    @Bean
+    public Bulkhead eventsBulkhead(@Value("${tickets.events.bulkhead.max-concurrent-calls:20}") int maxConcurrentCalls,
+                                   @Value("${tickets.events.bulkhead.max-wait:100ms}") Duration maxWait) {
+        return new Bulkhead(maxConcurrentCalls, maxWait);
+    }
+}
@@ -0,0 +1,99 @@
+package com.ticketing.tickets.configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.ticketing.tickets.entity.Ticket;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Regions of the Hibernate second-level cache, held in bounded Caffeine caches behind JCache.
+ * {@link Ticket} rows are cached by id and the results of cacheable ticket queries by their
+ * parameters. Hibernate keeps both consistent with writes made through JPA: a changed or deleted
+ * ticket is replaced or evicted when its transaction commits, and any ticket write invalidates the
+ * cached query results. Hibernate is configured to fail on any region not created here, so no
+ * region can grow without a bound.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    private static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    private static final String UPDATE_TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    // a cache manager of its own per application context, the provider's default one is shared JVM-wide
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${tickets.cache.tickets.max-size:100000}") long ticketsMaxSize,
+                                              @Value("${tickets.cache.tickets.expire-after:30m}") Duration ticketsExpireAfter,
+                                              @Value("${tickets.cache.queries.max-size:1000}") long queriesMaxSize,
+                                              @Value("${tickets.cache.queries.expire-after:5m}") Duration queriesExpireAfter) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate:" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(Ticket.CACHE_REGION, bounded(ticketsMaxSize, ticketsExpireAfter));
+        cacheManager.createCache(QUERY_RESULTS_REGION, bounded(queriesMaxSize, queriesExpireAfter));
+        // one entry per table, and evicting one could let a stale query result through
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * Hit ratios of the ticket region and the query cache, next to the raw hit and miss counts
+     * Spring Boot publishes as {@code hibernate.second.level.cache.requests}.
+     */
+    @Bean
+    public MeterBinder hibernateCacheHitRatios(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            hitRatio(registry, Ticket.CACHE_REGION, statistics, stats -> {
+                CacheRegionStatistics region = stats.getDomainDataRegionStatistics(Ticket.CACHE_REGION);
+                return ratio(region.getHitCount(), region.getMissCount());
+            });
+            hitRatio(registry, QUERY_RESULTS_REGION, statistics,
+                    stats -> ratio(stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount()));
+        };
+    }
+
+    private static void hitRatio(MeterRegistry registry, String region,
+                                 Statistics statistics, ToDoubleFunction<Statistics> ratio) {
+        Gauge.builder("tickets.cache.hit.ratio", statistics, ratio)
+                .description("Share of Hibernate cache lookups answered without querying the database")
+                .tag("region", region)
+                .register(registry);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long lookups = hits + misses;
+        return lookups == 0 ? Double.NaN : (double) hits / lookups;
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration expireAfter) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(expireAfter.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
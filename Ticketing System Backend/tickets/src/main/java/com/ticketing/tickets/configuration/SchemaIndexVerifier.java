@@ -0,0 +1,97 @@
+package com.ticketing.tickets.configuration;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Checks at startup that the schema Hibernate generated carries the indexes the booking lookups
+ * rely on. Without them those lookups still work, as full table scans, so a dropped or renamed
+ * index would otherwise only show up as latency once the tables are large.
+ * <p>
+ * Indexes are matched by leading column rather than by name, because databases name the index
+ * backing a unique constraint themselves.
+ */
+@Component
+@Log4j2
+public class SchemaIndexVerifier {
+
+    static final List<RequiredIndex> REQUIRED_INDEXES = List.of(
+            new RequiredIndex("bookings", "user", false),
+            new RequiredIndex("bookings", "ticket_id", true),
+            new RequiredIndex("bookings", "booking_date", false));
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+
+    public SchemaIndexVerifier(DataSource dataSource,
+                               @Value("${tickets.schema.verify-indexes:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verify() {
+        if (!enabled) {
+            return;
+        }
+        List<RequiredIndex> missing = findMissing(REQUIRED_INDEXES);
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Schema is missing required indexes: " + missing);
+        }
+        log.info("Verified {} required indexes", REQUIRED_INDEXES.size());
+    }
+
+    public List<RequiredIndex> findMissing(List<RequiredIndex> required) {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            List<RequiredIndex> missing = new ArrayList<>();
+            for (RequiredIndex index : required) {
+                Boolean unique = leadingColumns(metaData, index.table()).get(index.column().toUpperCase(Locale.ROOT));
+                if (unique == null || (index.unique() && !unique)) {
+                    missing.add(index);
+                }
+            }
+            return missing;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the index metadata", e);
+        }
+    }
+
+    // upper-cased leading column of every index on the table, mapped to whether any such index is unique
+    private static Map<String, Boolean> leadingColumns(DatabaseMetaData metaData, String table) throws SQLException {
+        Map<String, Boolean> columns = new HashMap<>();
+        try (ResultSet indexes = metaData.getIndexInfo(null, null, normalize(metaData, table), false, true)) {
+            while (indexes.next()) {
+                String column = indexes.getString("COLUMN_NAME");
+                if (column != null && indexes.getShort("ORDINAL_POSITION") == 1) {
+                    columns.merge(column.toUpperCase(Locale.ROOT), !indexes.getBoolean("NON_UNIQUE"), Boolean::logicalOr);
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static String normalize(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase(Locale.ROOT);
+        }
+        return metaData.storesLowerCaseIdentifiers() ? identifier.toLowerCase(Locale.ROOT) : identifier;
+    }
+
+    public record RequiredIndex(String table, String column, boolean unique) {
+    }
+}
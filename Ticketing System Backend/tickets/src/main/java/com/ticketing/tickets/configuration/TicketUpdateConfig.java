@@ -0,0 +1,23 @@
+package com.ticketing.tickets.configuration;
+
+import com.ticketing.tickets.resilience.OptimisticRetry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class TicketUpdateConfig {
+
+    /**
+     * Retry policy of bulk ticket updates. Each ticket is updated in a short transaction of its own
+     * and, when a concurrent write to the same ticket wins, re-read and updated again.
+     */
+    @Bean
+    public OptimisticRetry ticketUpdateRetry(@Value("${tickets.updates.retry.max-attempts:5}") int maxAttempts,
+                                             @Value("${tickets.updates.retry.initial-backoff:10ms}") Duration initialBackoff,
+                                             @Value("${tickets.updates.retry.max-backoff:200ms}") Duration maxBackoff) {
+        return new OptimisticRetry(maxAttempts, initialBackoff, maxBackoff);
+    }
+}
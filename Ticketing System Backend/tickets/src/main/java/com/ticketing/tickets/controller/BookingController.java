@@ -1,18 +1,38 @@
 package com.ticketing.tickets.controller;
 
+import com.ticketing.tickets.dto.BookingSummary;
+import com.ticketing.tickets.dto.CartCheckoutRequest;
+import com.ticketing.tickets.dto.ConfirmHoldRequest;
+import com.ticketing.tickets.dto.CursorPage;
+import com.ticketing.tickets.dto.SeatHold;
 import com.ticketing.tickets.entity.Booking;
 
 import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.exception.InvalidRequestException;
 import com.ticketing.tickets.exception.ResourceNotFoundException;
 import com.ticketing.tickets.service.BookingService;
 import com.ticketing.tickets.service.TicketService;
+import com.ticketing.tickets.util.ConditionalGet;
+import com.ticketing.tickets.util.TableChangeCounter;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -20,12 +40,18 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:4200")
 public class BookingController {
 
+    // bookings are per user: shared caches must not keep them, browsers revalidate before reuse
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final BookingService bookingService;
     private final TicketService ticketService;
+    private final TableChangeCounter tableChangeCounter;
 
-    public BookingController(BookingService bookingService, TicketService ticketService) {
+    public BookingController(BookingService bookingService, TicketService ticketService,
+                             TableChangeCounter tableChangeCounter) {
         this.bookingService = bookingService;
         this.ticketService = ticketService;
+        this.tableChangeCounter = tableChangeCounter;
     }
 
     @PostMapping
@@ -38,25 +64,112 @@ public class BookingController {
         return new ResponseEntity<>(savedBooking, HttpStatus.CREATED);
     }
 
+    @PostMapping("/checkout")
+    public ResponseEntity<List<Booking>> checkout(@Validated @RequestBody CartCheckoutRequest request) {
+        log.debug("Request to checkout cart: {}", request);
+        List<Long> ticketIds = request.getTicketIds();
+        Set<Long> uniqueIds = new HashSet<>(ticketIds);
+        if (uniqueIds.size() != ticketIds.size()) {
+            throw new InvalidRequestException("Cart contains the same ticket more than once");
+        }
+        Map<Long, Ticket> tickets = ticketService.getTicketsByIds(uniqueIds).stream()
+                .collect(Collectors.toMap(Ticket::getId, Function.identity()));
+        List<Ticket> cart = ticketIds.stream()
+                .map(id -> {
+                    Ticket ticket = tickets.get(id);
+                    if (ticket == null) {
+                        throw new ResourceNotFoundException("Ticket not found for this id :: " + id);
+                    }
+                    return ticket;
+                })
+                .toList();
+        return new ResponseEntity<>(bookingService.checkout(request.getUser(), cart), HttpStatus.CREATED);
+    }
+
     @GetMapping
-    public ResponseEntity<List<Booking>> getAllBookings() {
+    public ResponseEntity<List<BookingSummary>> getAllBookings(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("Request to get all bookings");
-        return new ResponseEntity<>(bookingService.getAllBookings(), HttpStatus.OK);
+        return ConditionalGet.respond(ifNoneMatch, bookingsEtag(), REVALIDATE, bookingService::getAllBookings);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Booking>> getBookingsPage(@RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "20") int size,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.debug("Request to get bookings page after cursor: {}", cursor);
+        return ConditionalGet.respond(ifNoneMatch, bookingsEtag(), REVALIDATE, () -> bookingService.getBookingsPage(cursor, size));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportBookings(HttpServletResponse response) throws IOException {
+        log.debug("Request to export all bookings");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        bookingService.exportBookings(response.getOutputStream());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Booking> getBookingById(@PathVariable(value = "id") Long bookingId) {
+    public ResponseEntity<Booking> getBookingById(@PathVariable(value = "id") Long bookingId,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("Request to get booking by id: {}", bookingId);
         Booking booking = bookingService.getBookingById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found for this id :: " + bookingId));
-        return new ResponseEntity<>(booking, HttpStatus.OK);
+        return ConditionalGet.respond(ifNoneMatch, bookingEtag(booking), REVALIDATE, () -> booking);
     }
 
     @GetMapping("/user/{user}")
-    public ResponseEntity<List<Booking>> getBookingsByUser(@PathVariable String user) {
+    public ResponseEntity<List<BookingSummary>> getBookingsByUser(@PathVariable String user,
+                                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("Request to get bookings by user: {}", user);
-        List<Booking> bookings = bookingService.getBookingsByUser(user);
-        return new ResponseEntity<>(bookings, HttpStatus.OK);
+        return ConditionalGet.respond(ifNoneMatch, bookingsEtag(), REVALIDATE, () -> bookingService.getBookingsByUser(user));
+    }
+
+    @GetMapping("/ticket/{ticketId}")
+    public ResponseEntity<Booking> getBookingByTicketId(@PathVariable Long ticketId,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.debug("Request to get booking by ticket id: {}", ticketId);
+        Booking booking = bookingService.getBookingByTicketId(ticketId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found for ticket id :: " + ticketId));
+        return ConditionalGet.respond(ifNoneMatch, bookingEtag(booking), REVALIDATE, () -> booking);
+    }
+
+    @GetMapping("/date")
+    public ResponseEntity<List<BookingSummary>> getBookingsBetween(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                            @RequestParam(defaultValue = "100") int size,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.debug("Request to get bookings made between {} and {}", from, to);
+        return ConditionalGet.respond(ifNoneMatch, bookingsEtag(), REVALIDATE, () -> bookingService.getBookingsBetween(from, to, size));
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<SeatHold> holdTicket(@RequestParam Long ticketId) {
+        log.debug("Request to hold ticket id: {}", ticketId);
+        Ticket ticket = ticketService.getTicketById(ticketId)
+                .orElseThrow(() -> new ResourceNotFoundException("Ticket not found for this id :: " + ticketId));
+        return new ResponseEntity<>(bookingService.holdTicket(ticket), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<Booking> confirmHold(@PathVariable String holdId,
+                                               @Validated @RequestBody ConfirmHoldRequest request) {
+        log.debug("Request to confirm hold: {}", holdId);
+        return new ResponseEntity<>(bookingService.confirmHold(holdId, request.getUser()), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<String> releaseHold(@PathVariable String holdId) {
+        log.debug("Request to release hold: {}", holdId);
+        bookingService.releaseHold(holdId);
+        return new ResponseEntity<>("Hold Released Successfully.", HttpStatus.OK);
+    }
+
+    // listings carry the ticket's event, seat and price, so a ticket write changes them too
+    private String bookingsEtag() {
+        return ConditionalGet.etag("bookings", tableChangeCounter.version(Booking.class, Ticket.class));
+    }
+
+    private static String bookingEtag(Booking booking) {
+        return ConditionalGet.etag("booking", booking.getId(), booking.getVersion(), booking.getTicket().getVersion());
     }
 
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.ticketing.tickets.controller;
 
 import com.ticketing.tickets.entity.Event;
 import com.ticketing.tickets.service.EventService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -10,6 +11,7 @@ import java.util.List;
 
 @RestController
 @RequestMapping("/events")
+@ConditionalOnProperty(name = "tickets.events.gateway", havingValue = "blocking", matchIfMissing = true)
 public class EventController {
 
     private final EventService eventService;
@@ -0,0 +1,59 @@
+package com.ticketing.tickets.controller;
+
+import com.ticketing.tickets.entity.Event;
+import com.ticketing.tickets.service.ReactiveEventService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of {@link EventController}, active with {@code tickets.events.gateway=reactive}.
+ * Handlers return as soon as the remote call is started; the servlet thread goes back to the pool
+ * and the response is written when the event loop completes the call.
+ */
+@RestController
+@RequestMapping("/events")
+@ConditionalOnProperty(name = "tickets.events.gateway", havingValue = "reactive")
+@Log4j2
+public class ReactiveEventController {
+
+    private final ReactiveEventService eventService;
+
+    public ReactiveEventController(ReactiveEventService eventService) {
+        this.eventService = eventService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Event>> createEvent(@RequestBody Event event) {
+        log.debug("Request to create event: {}", event);
+        return eventService.saveEvent(event).map(savedEvent -> new ResponseEntity<>(savedEvent, HttpStatus.CREATED));
+    }
+
+    @GetMapping
+    public Flux<Event> getAllEvents() {
+        log.debug("Request to get all events");
+        return eventService.getAllEvents();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Event>> getEventById(@PathVariable String id) {
+        log.debug("Request to get event: {}", id);
+        return eventService.getEventById(id).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Event>> updateEvent(@PathVariable Long id, @RequestBody Event event) {
+        log.debug("Request to update event: {}", id);
+        return eventService.updateEvent(id, event).map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteEvent(@PathVariable Long id) {
+        log.debug("Request to delete event: {}", id);
+        return eventService.deleteEvent(id).thenReturn(new ResponseEntity<>("Event Deleted Successfully.", HttpStatus.OK));
+    }
+}
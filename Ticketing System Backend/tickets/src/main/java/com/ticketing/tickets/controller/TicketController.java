@@ -1,16 +1,29 @@
 package com.ticketing.tickets.controller;
 
 
+import com.ticketing.tickets.dto.BulkTicketRequest;
+import com.ticketing.tickets.dto.CursorPage;
 import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.exception.PreconditionFailedException;
 import com.ticketing.tickets.exception.ResourceNotFoundException;
 import com.ticketing.tickets.service.TicketService;
+import com.ticketing.tickets.storage.SegmentManifest;
+import com.ticketing.tickets.util.ConditionalGet;
+import com.ticketing.tickets.util.TableChangeCounter;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/tickets")
@@ -18,10 +31,15 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:4200")
 public class TicketController {
 
+    // cached by browsers, but revalidated with If-None-Match before every reuse
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
     private final TicketService ticketService;
+    private final TableChangeCounter tableChangeCounter;
 
-    public TicketController(TicketService ticketService) {
+    public TicketController(TicketService ticketService, TableChangeCounter tableChangeCounter) {
         this.ticketService = ticketService;
+        this.tableChangeCounter = tableChangeCounter;
     }
 
     @PostMapping
@@ -30,27 +48,59 @@ public class TicketController {
         return new ResponseEntity<>(ticketService.saveTicket(ticket), HttpStatus.CREATED);
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<List<Ticket>> createTickets(@Validated @RequestBody BulkTicketRequest request) {
+        log.debug("Request to create {} tickets", request.getTickets().size());
+        return new ResponseEntity<>(ticketService.saveTickets(request.getTickets()), HttpStatus.CREATED);
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<List<Ticket>> updateTickets(@Validated @RequestBody BulkTicketRequest request) {
+        log.debug("Request to update {} tickets", request.getTickets().size());
+        return new ResponseEntity<>(ticketService.updateTickets(request.getTickets()), HttpStatus.OK);
+    }
+
     @GetMapping
-    public ResponseEntity<List<Ticket>> getAllTickets() {
+    public ResponseEntity<List<Ticket>> getAllTickets(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("Request to get all tickets");
-        return new ResponseEntity<>(ticketService.getAllTickets(),HttpStatus.OK);
+        return ConditionalGet.respond(ifNoneMatch, ticketsEtag(), REVALIDATE, ticketService::getAllTickets);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Ticket>> getTicketsPage(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "20") int size,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.debug("Request to get tickets page after cursor: {}", cursor);
+        return ConditionalGet.respond(ifNoneMatch, ticketsEtag(), REVALIDATE, () -> ticketService.getTicketsPage(cursor, size));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportTickets(HttpServletResponse response) throws IOException {
+        log.debug("Request to export all tickets");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ticketService.exportTickets(response.getOutputStream());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Ticket> getTicketById(@PathVariable(value = "id") Long ticketId)
+    public ResponseEntity<Ticket> getTicketById(@PathVariable(value = "id") Long ticketId,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
             throws ResourceNotFoundException {
         log.debug("Request to get ticket by id: {}", ticketId);
         Ticket ticket = ticketService.getTicketById(ticketId)
                 .orElseThrow(() -> new ResourceNotFoundException("Ticket not found for this id :: " + ticketId));
-        return new ResponseEntity<>(ticket,HttpStatus.OK);
+        return ConditionalGet.respond(ifNoneMatch, ticketEtag(ticket), REVALIDATE, () -> ticket);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Ticket> updateTicket(@PathVariable(value = "id") Long ticketId,
-                                               @Validated @RequestBody Ticket ticketDetails) throws ResourceNotFoundException {
+                                               @Validated @RequestBody Ticket ticketDetails,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+            throws ResourceNotFoundException {
         log.debug("Request to update ticket id: {}", ticketId);
-        Ticket updatedTicket = ticketService.updateTicket(ticketId, ticketDetails);
-        return new ResponseEntity<>(updatedTicket,HttpStatus.OK);
+        Ticket updatedTicket = ifMatch == null || ifMatch.trim().equals("*")
+                ? ticketService.updateTicket(ticketId, ticketDetails)
+                : ticketService.updateTicket(ticketId, ticketDetails, expectedVersions(ticketId, ifMatch));
+        return ResponseEntity.ok().eTag(ticketEtag(updatedTicket)).body(updatedTicket);
     }
 
     @DeleteMapping("/{id}")
@@ -74,10 +124,53 @@ public class TicketController {
         return new ResponseEntity<>(ticketService.getAllTicketsFromS3(),HttpStatus.OK);
     }
 
+    @GetMapping("/S3/page")
+    public ResponseEntity<CursorPage<Ticket>> getTicketsPageFromS3(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(defaultValue = "100") int size) {
+        log.debug("Request to get tickets page From S3 after cursor: {}", cursor);
+        return new ResponseEntity<>(ticketService.getTicketsPageFromS3(cursor, size),HttpStatus.OK);
+    }
+
+    @PostMapping("/S3/snapshot")
+    public ResponseEntity<SegmentManifest> snapshotTicketsToS3() {
+        log.debug("Request to write ticket segment snapshot to S3");
+        return new ResponseEntity<>(ticketService.snapshotTicketsToS3(),HttpStatus.CREATED);
+    }
+
     @DeleteMapping("S3/{id}")
     public ResponseEntity<String> deleteTicketFromS3(@PathVariable(value = "id") Long ticketId) throws ResourceNotFoundException {
         log.debug("Request to delete ticket id From S3: {}", ticketId);
         ticketService.deleteTicketFromS3(ticketId);
         return new ResponseEntity<>("Ticket Deleted Successfully From S3.",HttpStatus.OK);
     }
+
+    private static String ticketEtag(Ticket ticket) {
+        return ConditionalGet.etag("ticket", ticket.getId(), ticket.getVersion());
+    }
+
+    // If-Match lists the versions the client accepts by their ETags; If-Match compares strongly, so
+    // weak tags never match. The update goes ahead if the current version is any of them
+    private static Set<Long> expectedVersions(Long ticketId, String ifMatch) {
+        String prefix = "\"ticket-" + ticketId + "-";
+        Set<Long> versions = new HashSet<>();
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(prefix) && tag.endsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(prefix.length(), tag.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // not a tag this endpoint hands out, so it cannot match
+                }
+            }
+        }
+        if (!versions.isEmpty()) {
+            return versions;
+        }
+        throw new PreconditionFailedException("If-Match does not name a version of ticket " + ticketId + ": " + ifMatch);
+    }
+
+    // changes with every ticket write, so listings are answered 304 without reading the table
+    private String ticketsEtag() {
+        return ConditionalGet.etag("tickets", tableChangeCounter.version(Ticket.class));
+    }
 }
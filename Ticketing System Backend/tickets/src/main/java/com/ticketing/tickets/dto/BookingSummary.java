@@ -0,0 +1,13 @@
+package com.ticketing.tickets.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read model for the booking listings: a booking with the ticket fields the UI shows, flattened.
+ * Built directly by a JPQL constructor expression over a join, so a listing costs one query and
+ * never loads or tracks entities.
+ */
+public record BookingSummary(Long id, String user, LocalDateTime bookingDate,
+                             Long ticketId, String event, String seat, BigDecimal price) {
+}
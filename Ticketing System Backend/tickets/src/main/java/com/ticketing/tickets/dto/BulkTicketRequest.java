@@ -0,0 +1,22 @@
+package com.ticketing.tickets.dto;
+
+import com.ticketing.tickets.entity.Ticket;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTicketRequest {
+    public static final int MAX_TICKETS = 50_000;
+
+    @NotEmpty(message = "At least one ticket is required")
+    @Size(max = MAX_TICKETS, message = "A bulk request may not contain more than 50000 tickets")
+    private List<@Valid Ticket> tickets;
+}
@@ -0,0 +1,25 @@
+package com.ticketing.tickets.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartCheckoutRequest {
+    public static final int MAX_TICKETS = 50;
+
+    @NotNull(message = "User is required")
+    @Size(min = 3, max = 100, message = "User name must be between 3 and 100 characters")
+    private String user;
+
+    @NotEmpty(message = "At least one ticket is required")
+    @Size(max = MAX_TICKETS, message = "A cart may not contain more than 50 tickets")
+    private List<@NotNull(message = "Ticket id is required") Long> ticketIds;
+}
@@ -0,0 +1,16 @@
+package com.ticketing.tickets.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfirmHoldRequest {
+    @NotNull(message = "User is required")
+    @Size(min = 3, max = 100, message = "User name must be between 3 and 100 characters")
+    private String user;
+}
@@ -0,0 +1,36 @@
+package com.ticketing.tickets.dto;
+
+import com.ticketing.tickets.util.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is an opaque token to pass back
+ * as {@code cursor} for the following page, or {@code null} when this is the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code pageSize + 1}; the extra row only
+     * signals that another page exists and is not returned.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int pageSize, Function<T, Long> idExtractor) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, rows.size(), null);
+        }
+        List<T> content = new ArrayList<>(rows.subList(0, pageSize));
+        String nextCursor = KeysetCursor.encode(idExtractor.apply(content.get(pageSize - 1)));
+        return new CursorPage<>(content, pageSize, nextCursor);
+    }
+}
@@ -0,0 +1,17 @@
+package com.ticketing.tickets.dto;
+
+import com.ticketing.tickets.entity.Ticket;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHold {
+    private String holdId;
+    private Ticket ticket;
+    private Instant expiresAt;
+}
@@ -13,10 +13,18 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "bookings")
+@EntityListeners(TableChangeListener.class)
+// lookups by user, by ticket and by booking date are index seeks; a ticket has at most one booking
+@Table(name = "bookings",
+        indexes = {
+                @Index(name = "idx_bookings_user", columnList = "user"),
+                @Index(name = "idx_bookings_booking_date", columnList = "booking_date")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_bookings_ticket_id", columnNames = "ticket_id"))
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -29,4 +37,7 @@ public class Booking {
     private String user;
 
     private LocalDateTime bookingDate;
+
+    @Version
+    private Long version;
 }
\ No newline at end of file
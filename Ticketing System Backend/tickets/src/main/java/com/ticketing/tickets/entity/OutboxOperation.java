@@ -0,0 +1,6 @@
+package com.ticketing.tickets.entity;
+
+public enum OutboxOperation {
+    UPSERT,
+    DELETE
+}
@@ -0,0 +1,26 @@
+package com.ticketing.tickets.entity;
+
+import com.ticketing.tickets.util.TableChangeCounter;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Reports every write of a listened entity to the {@link TableChangeCounter}. Hibernate creates
+ * the listener through Spring, which supplies the counter.
+ */
+public class TableChangeListener {
+
+    private final TableChangeCounter tableChangeCounter;
+
+    public TableChangeListener(TableChangeCounter tableChangeCounter) {
+        this.tableChangeCounter = tableChangeCounter;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        tableChangeCounter.changed(entity.getClass());
+    }
+}
@@ -0,0 +1,50 @@
+package com.ticketing.tickets.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pending replication of a ticket change to S3. Rows are written in the same transaction as
+ * the ticket change and shipped by the outbox relay, which sets {@code processedAt} once S3 has
+ * accepted the write.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "ticket_outbox", indexes = {
+        @Index(name = "idx_ticket_outbox_processed_at", columnList = "processed_at, id"),
+        @Index(name = "idx_ticket_outbox_ticket_id", columnList = "ticket_id, created_at")
+})
+public class TicketOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_outbox_seq")
+    @SequenceGenerator(name = "ticket_outbox_seq", sequenceName = "ticket_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long ticketId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private OutboxOperation operation;
+
+    @Column(nullable = false, length = 100)
+    private String bucket;
+
+    @Column(nullable = false, length = 300)
+    private String objectKey;
+
+    // serialized ticket for UPSERT, null for DELETE
+    @Column(length = 4000)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+}
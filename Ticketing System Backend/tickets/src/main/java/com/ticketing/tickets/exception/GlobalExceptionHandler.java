@@ -1,6 +1,9 @@
 package com.ticketing.tickets.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -21,10 +24,24 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
     private static final String ERROR_KEY = "error";
 
+    private final Counter notFoundResponses;
+    private final Counter bookingConflicts;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.notFoundResponses = Counter.builder("tickets.responses.not.found")
+                .description("Requests answered 404 because a ticket, booking or event does not exist")
+                .register(meterRegistry);
+        // every ResourceAlreadyExistsException is a booking or hold on a ticket that is already taken
+        this.bookingConflicts = Counter.builder("tickets.bookings.conflicts")
+                .description("Bookings and holds rejected because the ticket was already taken")
+                .register(meterRegistry);
+    }
+
     // Handle ResourceNotFoundException
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleResourceNotFoundException(ResourceNotFoundException ex, WebRequest request) {
         log.error("ResourceNotFoundException: {}", ex.getMessage());
+        notFoundResponses.increment();
         Map<String, String> response = new HashMap<>();
         response.put(ERROR_KEY, ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
@@ -33,11 +50,46 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     @ExceptionHandler(ResourceAlreadyExistsException.class)
     public ResponseEntity<Map<String, String>> handleResourceAlreadyExistsException(ResourceAlreadyExistsException ex, WebRequest request) {
         log.error("ResourceAlreadyExistsException: {}", ex.getMessage());
+        bookingConflicts.increment();
         Map<String, String> response = new HashMap<>();
         response.put(ERROR_KEY, ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidRequestException(InvalidRequestException ex, WebRequest request) {
+        log.error("InvalidRequestException: {}", ex.getMessage());
+        Map<String, String> response = new HashMap<>();
+        response.put(ERROR_KEY, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    // an If-Match naming a version that is no longer current
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, String>> handlePreconditionFailedException(PreconditionFailedException ex, WebRequest request) {
+        log.error("PreconditionFailedException: {}", ex.getMessage());
+        Map<String, String> response = new HashMap<>();
+        response.put(ERROR_KEY, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // a concurrent write committed between this request's read and its own write
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, WebRequest request) {
+        log.error("OptimisticLockingFailureException: {}", ex.getMessage());
+        Map<String, String> response = new HashMap<>();
+        response.put(ERROR_KEY, "The resource was modified concurrently, reload it and try again");
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleServiceUnavailableException(ServiceUnavailableException ex, WebRequest request) {
+        log.error("ServiceUnavailableException: {}", ex.getMessage());
+        Map<String, String> response = new HashMap<>();
+        response.put(ERROR_KEY, ex.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     // Handle global exceptions
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGlobalException(Exception ex, WebRequest request) {
@@ -0,0 +1,170 @@
+package com.ticketing.tickets.inventory;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel in the style of Varghese &amp; Lauck: timers are hashed into a fixed ring
+ * of buckets by deadline, and a single worker thread advances one bucket per tick. Scheduling is
+ * an O(1) enqueue and each tick only touches the timers in one bucket, so very large numbers of
+ * short-lived timers stay cheap. Expiry precision is one tick. A cancelled timer is queued for
+ * removal and leaves its bucket on the next tick instead of waiting out its deadline.
+ */
+@Log4j2
+public class HashedTimingWheel {
+
+    // Bound on how many newly scheduled timers are moved into the wheel per tick
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Queue<Timer>[] buckets;
+    private final Queue<Timer> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timer> cancelled = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running = true;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("tickDuration and ticksPerWheel must be positive");
+        }
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        size = Math.max(size, 1);
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = size - 1;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timer schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel has been stopped");
+        }
+        Timer timer = new Timer(task, System.nanoTime() - startTime + unit.toNanos(delay));
+        pending.add(timer);
+        return timer;
+    }
+
+    public int pendingTimers() {
+        int count = pending.size();
+        synchronized (buckets) {
+            for (Queue<Timer> bucket : buckets) {
+                count += bucket.size();
+            }
+        }
+        return count;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+            synchronized (buckets) {
+                removeCancelled();
+                transferPending();
+                expire(buckets[(int) (tick & mask)], deadline);
+            }
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        for (Timer timer = cancelled.poll(); timer != null; timer = cancelled.poll()) {
+            // still in pending if bucket is null; transferPending drops it there
+            if (timer.bucket != null) {
+                timer.bucket.remove(timer);
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timer timer = pending.poll();
+            if (timer == null) {
+                return;
+            }
+            if (timer.done.get()) {
+                continue;
+            }
+            long expiryTick = Math.max(timer.deadline / tickNanos, tick);
+            timer.remainingRounds = (expiryTick - tick) / buckets.length;
+            timer.bucket = buckets[(int) (expiryTick & mask)];
+            timer.bucket.add(timer);
+        }
+    }
+
+    private void expire(Queue<Timer> bucket, long deadline) {
+        for (int remaining = bucket.size(); remaining > 0; remaining--) {
+            Timer timer = bucket.poll();
+            if (timer.remainingRounds > 0) {
+                timer.remainingRounds--;
+                bucket.add(timer);
+            } else if (timer.deadline <= deadline) {
+                if (!timer.done.compareAndSet(false, true)) {
+                    continue;
+                }
+                try {
+                    timer.task.run();
+                } catch (RuntimeException e) {
+                    log.error("Timer task failed: {}", e.getMessage(), e);
+                }
+            } else {
+                bucket.add(timer);
+            }
+        }
+    }
+
+    /**
+     * Handle to a scheduled task. Only the worker thread touches the bucket bookkeeping; callers
+     * just flip {@code done} so that cancel and expiry race on a single CAS.
+     */
+    public final class Timer {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private long remainingRounds;
+        private Queue<Timer> bucket;
+
+        private Timer(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timer if it has not fired yet.
+         *
+         * @return {@code true} if this call cancelled it, {@code false} if it already fired or was cancelled
+         */
+        public boolean cancel() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            cancelled.add(this);
+            return true;
+        }
+    }
+}
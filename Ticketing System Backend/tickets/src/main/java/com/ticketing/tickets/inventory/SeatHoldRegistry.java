@@ -0,0 +1,111 @@
+package com.ticketing.tickets.inventory;
+
+import com.ticketing.tickets.dto.SeatHold;
+import com.ticketing.tickets.entity.Ticket;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-limited holds on seats. A hold moves a seat from AVAILABLE to HELD in the
+ * {@link SeatInventory}; it is then either claimed (HELD to BOOKED), released, or reclaimed by
+ * the timing wheel once its TTL runs out. Whichever of these removes the hold first wins, and a
+ * claim or release cancels the hold's expiry timer.
+ */
+@Component
+@Log4j2
+public class SeatHoldRegistry {
+
+    private final ConcurrentHashMap<String, ActiveHold> holds = new ConcurrentHashMap<>();
+    private final SeatInventory seatInventory;
+    private final HashedTimingWheel timingWheel;
+    private final Duration ttl;
+
+    public SeatHoldRegistry(SeatInventory seatInventory,
+                            @Value("${tickets.holds.ttl:5m}") Duration ttl,
+                            @Value("${tickets.holds.tick:1s}") Duration tick,
+                            @Value("${tickets.holds.wheel-size:512}") int wheelSize) {
+        this.seatInventory = seatInventory;
+        this.ttl = ttl;
+        this.timingWheel = new HashedTimingWheel("seat-hold-expiry", tick.toNanos(), TimeUnit.NANOSECONDS, wheelSize);
+    }
+
+    public Optional<SeatHold> hold(Ticket ticket) {
+        if (!seatInventory.tryHold(ticket.getId())) {
+            return Optional.empty();
+        }
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), ticket, Instant.now().plus(ttl));
+        ActiveHold active = new ActiveHold(hold);
+        // registered before the timer is armed, so expiry can never miss it
+        holds.put(hold.getHoldId(), active);
+        active.expiry = timingWheel.schedule(() -> expire(hold.getHoldId()), ttl.toNanos(), TimeUnit.NANOSECONDS);
+        log.debug("Seat held: {}", hold);
+        return Optional.of(hold);
+    }
+
+    public Optional<SeatHold> claim(String holdId) {
+        ActiveHold active = holds.remove(holdId);
+        if (active == null) {
+            return Optional.empty();
+        }
+        active.cancelExpiry();
+        if (!seatInventory.confirmHeld(active.hold.getTicket().getId())) {
+            // the seat left HELD behind our back, e.g. the ticket was deleted and re-seeded
+            log.debug("Seat for hold {} is no longer held", holdId);
+            return Optional.empty();
+        }
+        return Optional.of(active.hold);
+    }
+
+    public boolean release(String holdId) {
+        ActiveHold active = holds.remove(holdId);
+        if (active == null) {
+            return false;
+        }
+        active.cancelExpiry();
+        seatInventory.releaseHeld(active.hold.getTicket().getId());
+        return true;
+    }
+
+    public int activeHolds() {
+        return holds.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timingWheel.stop();
+    }
+
+    private void expire(String holdId) {
+        ActiveHold active = holds.remove(holdId);
+        if (active != null) {
+            seatInventory.releaseHeld(active.hold.getTicket().getId());
+            log.debug("Seat hold expired: {}", holdId);
+        }
+    }
+
+    private static final class ActiveHold {
+        private final SeatHold hold;
+        // null only in the instant between registering the hold and arming its timer
+        private volatile HashedTimingWheel.Timer expiry;
+
+        private ActiveHold(SeatHold hold) {
+            this.hold = hold;
+        }
+
+        private void cancelExpiry() {
+            HashedTimingWheel.Timer timer = expiry;
+            if (timer != null) {
+                timer.cancel();
+            }
+        }
+    }
+}
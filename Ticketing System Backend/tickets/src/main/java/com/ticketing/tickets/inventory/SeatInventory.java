@@ -0,0 +1,97 @@
+package com.ticketing.tickets.inventory;
+
+import com.ticketing.tickets.repository.BookingRepository;
+import com.ticketing.tickets.repository.TicketRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory availability state for every {@code Ticket}. Seats are claimed with a single
+ * compare-and-set, so exactly one concurrent booking attempt wins a seat and the losers are
+ * turned away without touching the database.
+ */
+@Component
+@Log4j2
+public class SeatInventory {
+
+    private final ConcurrentHashMap<Long, AtomicReference<SeatStatus>> seats = new ConcurrentHashMap<>();
+    private final TicketRepository ticketRepository;
+    private final BookingRepository bookingRepository;
+
+    public SeatInventory(TicketRepository ticketRepository, BookingRepository bookingRepository) {
+        this.ticketRepository = ticketRepository;
+        this.bookingRepository = bookingRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        log.debug("Rebuilding seat inventory from the database");
+        Set<Long> bookedTicketIds = new HashSet<>(bookingRepository.findBookedTicketIds());
+        for (Long ticketId : ticketRepository.findAllIds()) {
+            // seats already seeded by an early request are kept, they were read from the same tables
+            seats.putIfAbsent(ticketId, new AtomicReference<>(
+                    bookedTicketIds.contains(ticketId) ? SeatStatus.BOOKED : SeatStatus.AVAILABLE));
+        }
+        log.info("Seat inventory loaded with {} seats, {} booked", seats.size(), bookedTicketIds.size());
+    }
+
+    public boolean tryBook(Long ticketId) {
+        return stateOf(ticketId).compareAndSet(SeatStatus.AVAILABLE, SeatStatus.BOOKED);
+    }
+
+    // Undo a claim whose booking could not be persisted
+    public void release(Long ticketId) {
+        AtomicReference<SeatStatus> state = seats.get(ticketId);
+        if (state != null) {
+            state.compareAndSet(SeatStatus.BOOKED, SeatStatus.AVAILABLE);
+        }
+    }
+
+    public boolean tryHold(Long ticketId) {
+        return stateOf(ticketId).compareAndSet(SeatStatus.AVAILABLE, SeatStatus.HELD);
+    }
+
+    public boolean confirmHeld(Long ticketId) {
+        return stateOf(ticketId).compareAndSet(SeatStatus.HELD, SeatStatus.BOOKED);
+    }
+
+    public void releaseHeld(Long ticketId) {
+        AtomicReference<SeatStatus> state = seats.get(ticketId);
+        if (state != null) {
+            state.compareAndSet(SeatStatus.HELD, SeatStatus.AVAILABLE);
+        }
+    }
+
+    public SeatStatus statusOf(Long ticketId) {
+        return stateOf(ticketId).get();
+    }
+
+    public void register(Long ticketId) {
+        seats.putIfAbsent(ticketId, new AtomicReference<>(SeatStatus.AVAILABLE));
+    }
+
+    public void remove(Long ticketId) {
+        seats.remove(ticketId);
+    }
+
+    private AtomicReference<SeatStatus> stateOf(Long ticketId) {
+        AtomicReference<SeatStatus> state = seats.get(ticketId);
+        if (state != null) {
+            return state;
+        }
+        // ticket written outside this service (or by another instance): seed it from the database.
+        // The query runs before the map is touched, so no bin lock is held across it; when two
+        // threads seed the same seat, the first one in wins.
+        AtomicReference<SeatStatus> seeded = new AtomicReference<>(
+                bookingRepository.existsByTicketId(ticketId) ? SeatStatus.BOOKED : SeatStatus.AVAILABLE);
+        AtomicReference<SeatStatus> raced = seats.putIfAbsent(ticketId, seeded);
+        return raced != null ? raced : seeded;
+    }
+}
@@ -0,0 +1,7 @@
+package com.ticketing.tickets.inventory;
+
+public enum SeatStatus {
+    AVAILABLE,
+    HELD,
+    BOOKED
+}
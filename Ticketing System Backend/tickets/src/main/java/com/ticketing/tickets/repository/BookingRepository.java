@@ -1,13 +1,59 @@
 package com.ticketing.tickets.repository;
 
+import com.ticketing.tickets.dto.BookingSummary;
 import com.ticketing.tickets.entity.Booking;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    String SUMMARY = "select new com.ticketing.tickets.dto.BookingSummary("
+            + "b.id, b.user, b.bookingDate, t.id, t.event, t.seat, t.price) from Booking b join b.ticket t ";
+
+    boolean existsByTicketId(Long ticketId);
+
+    // entity reads load the eager ticket in the same statement rather than one select per booking
+    @EntityGraph(attributePaths = "ticket")
     List<Booking> findByUser(String user);
+
+    @EntityGraph(attributePaths = "ticket")
+    List<Booking> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "ticket")
+    Optional<Booking> findByTicketId(Long ticketId);
+
+    @Query(SUMMARY + "order by b.id")
+    List<BookingSummary> findAllSummaries();
+
+    @Query(SUMMARY + "where b.user = :user order by b.id")
+    List<BookingSummary> findSummariesByUser(@Param("user") String user);
+
+    @Query(SUMMARY + "where b.bookingDate between :from and :to order by b.bookingDate, b.id")
+    List<BookingSummary> findSummariesByBookingDateBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                           Pageable pageable);
+
+    @Query("select b.ticket.id from Booking b")
+    List<Long> findBookedTicketIds();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            // a full export must not push the hot tickets out of the second-level cache
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select b from Booking b join fetch b.ticket order by b.id")
+    Stream<Booking> streamAllOrderById();
 }
@@ -0,0 +1,9 @@
+package com.ticketing.tickets.repository;
+
+import com.ticketing.tickets.entity.Ticket;
+
+import java.util.List;
+
+public interface TicketBulkRepository {
+    List<Ticket> insertAll(List<Ticket> tickets);
+}
@@ -0,0 +1,37 @@
+package com.ticketing.tickets.repository;
+
+import com.ticketing.tickets.entity.Ticket;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Inserts tickets in JDBC batches. The persistence context is flushed and cleared every
+ * {@link #BATCH_SIZE} rows so Hibernate sends one batched statement per chunk and does not
+ * keep every inserted ticket managed until commit.
+ */
+public class TicketBulkRepositoryImpl implements TicketBulkRepository {
+
+    // keep in line with spring.jpa.properties.hibernate.jdbc.batch_size
+    static final int BATCH_SIZE = 50;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public List<Ticket> insertAll(List<Ticket> tickets) {
+        for (int i = 0; i < tickets.size(); i++) {
+            entityManager.persist(tickets.get(i));
+            if ((i + 1) % BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return tickets;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ticketing.tickets.repository;
+
+import com.ticketing.tickets.entity.TicketOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public interface TicketOutboxRepository extends JpaRepository<TicketOutbox, Long> {
+    List<TicketOutbox> findByProcessedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    long countByProcessedAtIsNull();
+
+    boolean existsByTicketIdAndCreatedAtGreaterThanEqual(Long ticketId, LocalDateTime since);
+
+    @Query("select distinct o.ticketId from TicketOutbox o where o.createdAt >= :since")
+    Set<Long> findTicketIdsChangedSince(@Param("since") LocalDateTime since);
+
+    @Query("select count(o) > 0 from TicketOutbox o where o.ticketId = :ticketId"
+            + " and (o.processedAt is null or o.processedAt >= :before)")
+    boolean existsChangeNotShippedBefore(@Param("ticketId") Long ticketId, @Param("before") LocalDateTime before);
+
+    @Query("select distinct o.ticketId from TicketOutbox o where o.processedAt is null or o.processedAt >= :before")
+    Set<Long> findTicketIdsNotShippedBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Transactional
+    @Query("update TicketOutbox o set o.processedAt = :processedAt where o.id in :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("processedAt") LocalDateTime processedAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from TicketOutbox o where o.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
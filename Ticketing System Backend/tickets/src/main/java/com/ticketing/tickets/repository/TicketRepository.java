@@ -1,9 +1,32 @@
 package com.ticketing.tickets.repository;
 
 import com.ticketing.tickets.entity.Ticket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
-public interface TicketRepository extends JpaRepository<Ticket,Long> {
+public interface TicketRepository extends JpaRepository<Ticket,Long>, TicketBulkRepository {
+    // pages are re-read on every navigation; the cached result holds ids, rows come from the entity cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Ticket> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select t.id from Ticket t")
+    List<Long> findAllIds();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            // a full export must not push the hot tickets out of the second-level cache
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select t from Ticket t order by t.id")
+    Stream<Ticket> streamAllOrderById();
 }
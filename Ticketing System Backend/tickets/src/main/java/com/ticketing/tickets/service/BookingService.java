@@ -1,13 +1,29 @@
 package com.ticketing.tickets.service;
 
+import com.ticketing.tickets.dto.BookingSummary;
+import com.ticketing.tickets.dto.CursorPage;
+import com.ticketing.tickets.dto.SeatHold;
 import com.ticketing.tickets.entity.Booking;
+import com.ticketing.tickets.entity.Ticket;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface BookingService {
     Booking saveBooking(Booking booking);
-    List<Booking> getAllBookings();
+    List<Booking> checkout(String user, List<Ticket> tickets);
+    List<BookingSummary> getAllBookings();
+    CursorPage<Booking> getBookingsPage(String cursor, int size);
+    long exportBookings(OutputStream out) throws IOException;
     Optional<Booking> getBookingById(Long bookingId);
-    List<Booking> getBookingsByUser(String user);
+    List<BookingSummary> getBookingsByUser(String user);
+    Optional<Booking> getBookingByTicketId(Long ticketId);
+    List<BookingSummary> getBookingsBetween(LocalDateTime from, LocalDateTime to, int size);
+
+    SeatHold holdTicket(Ticket ticket);
+    Booking confirmHold(String holdId, String user);
+    void releaseHold(String holdId);
 
 }
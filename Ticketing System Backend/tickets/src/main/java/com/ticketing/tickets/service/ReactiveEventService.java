@@ -0,0 +1,14 @@
+package com.ticketing.tickets.service;
+
+import com.ticketing.tickets.entity.Event;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+public interface ReactiveEventService {
+    Mono<Event> saveEvent(Event event);
+    Flux<Event> getAllEvents();
+    Mono<Event> getEventById(String id);
+    Mono<Event> updateEvent(Long id, Event event);
+    Mono<Void> deleteEvent(Long id);
+}
@@ -1,18 +1,32 @@
 package com.ticketing.tickets.service;
 
+import com.ticketing.tickets.dto.CursorPage;
 import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.storage.SegmentManifest;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface TicketService {
     Ticket saveTicket(Ticket ticket);
+    List<Ticket> saveTickets(List<Ticket> tickets);
     List<Ticket> getAllTickets();
+    CursorPage<Ticket> getTicketsPage(String cursor, int size);
+    long exportTickets(OutputStream out) throws IOException;
     Optional<Ticket> getTicketById(Long id);
+    List<Ticket> getTicketsByIds(Collection<Long> ids);
     Ticket updateTicket(Long id, Ticket ticket);
+    Ticket updateTicket(Long id, Ticket ticket, Set<Long> expectedVersions);
+    List<Ticket> updateTickets(List<Ticket> tickets);
     void deleteTicket(Long id);
 
     Ticket getTicketFromS3(Long id);
     List<Ticket> getAllTicketsFromS3();
+    CursorPage<Ticket> getTicketsPageFromS3(String continuationToken, int size);
+    SegmentManifest snapshotTicketsToS3();
     void deleteTicketFromS3(Long id);
 }
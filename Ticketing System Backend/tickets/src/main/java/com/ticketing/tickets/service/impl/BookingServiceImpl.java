@@ -1,59 +1,203 @@
 package com.ticketing.tickets.service.impl;
 
 
+import com.ticketing.tickets.dto.BookingSummary;
+import com.ticketing.tickets.dto.CursorPage;
+import com.ticketing.tickets.dto.SeatHold;
 import com.ticketing.tickets.entity.Booking;
+import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.exception.InvalidRequestException;
 import com.ticketing.tickets.exception.ResourceAlreadyExistsException;
 import com.ticketing.tickets.exception.ResourceNotFoundException;
+import com.ticketing.tickets.inventory.SeatHoldRegistry;
+import com.ticketing.tickets.inventory.SeatInventory;
 import com.ticketing.tickets.repository.BookingRepository;
 import com.ticketing.tickets.service.BookingService;
+import com.ticketing.tickets.util.KeysetCursor;
+import com.ticketing.tickets.util.NdjsonExporter;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
+@Timed("tickets.service")
 @Log4j2
 public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
+    private final NdjsonExporter ndjsonExporter;
+    private final SeatInventory seatInventory;
+    private final SeatHoldRegistry seatHoldRegistry;
 
-    public BookingServiceImpl(BookingRepository bookingRepository) {
+    public BookingServiceImpl(BookingRepository bookingRepository, NdjsonExporter ndjsonExporter,
+                              SeatInventory seatInventory, SeatHoldRegistry seatHoldRegistry) {
         this.bookingRepository = bookingRepository;
+        this.ndjsonExporter = ndjsonExporter;
+        this.seatInventory = seatInventory;
+        this.seatHoldRegistry = seatHoldRegistry;
     }
 
     public Booking saveBooking(Booking booking) {
         log.debug("Creating Booking: {}", booking);
-        Optional<Booking> existingBooking = bookingRepository.findById(booking.getTicket().getId());
-        if (existingBooking.isPresent()) {
-            throw new ResourceAlreadyExistsException("Booking already exists for user: " + booking.getUser() + " and ticket ID: " + booking.getTicket().getId());
+        Long ticketId = booking.getTicket().getId();
+        if (!seatInventory.tryBook(ticketId)) {
+            throw new ResourceAlreadyExistsException("Booking already exists for user: " + booking.getUser() + " and ticket ID: " + ticketId);
         }
+        booking.setId(null);
+        booking.setVersion(null);
         booking.setBookingDate(LocalDateTime.now());
-        return bookingRepository.save(booking);
+        try {
+            return bookingRepository.save(booking);
+        } catch (DataIntegrityViolationException e) {
+            // the unique ticket index caught a booking this instance's inventory did not know about
+            if (bookingRepository.existsByTicketId(ticketId)) {
+                throw new ResourceAlreadyExistsException("Booking already exists for user: " + booking.getUser() + " and ticket ID: " + ticketId);
+            }
+            seatInventory.release(ticketId);
+            throw e;
+        } catch (RuntimeException e) {
+            seatInventory.release(ticketId);
+            throw e;
+        }
+    }
+
+    @Transactional
+    public List<Booking> checkout(String user, List<Ticket> tickets) {
+        log.debug("Checking out {} tickets for user: {}", tickets.size(), user);
+        List<Long> claimed = new ArrayList<>(tickets.size());
+        boolean releasedOnRollback = releaseOnRollback(claimed);
+        try {
+            for (Ticket ticket : tickets) {
+                if (!seatInventory.tryBook(ticket.getId())) {
+                    throw new ResourceAlreadyExistsException("Booking already exists for ticket ID: " + ticket.getId());
+                }
+                claimed.add(ticket.getId());
+            }
+            LocalDateTime bookingDate = LocalDateTime.now();
+            List<Booking> bookings = new ArrayList<>(tickets.size());
+            for (Ticket ticket : tickets) {
+                bookings.add(new Booking(null, ticket, user, bookingDate, null));
+            }
+            // flush here so constraint failures surface from checkout rather than from the commit
+            return bookingRepository.saveAllAndFlush(bookings);
+        } catch (RuntimeException e) {
+            if (!releasedOnRollback) {
+                claimed.forEach(seatInventory::release);
+            }
+            throw e;
+        }
+    }
+
+    // Seats go back once the transaction has actually rolled back, which also covers a failing commit
+    // and an enclosing transaction that rolls back after checkout returned
+    private boolean releaseOnRollback(List<Long> claimed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    claimed.forEach(seatInventory::release);
+                }
+            }
+        });
+        return true;
     }
 
-    public List<Booking> getAllBookings() {
+    public List<BookingSummary> getAllBookings() {
         log.debug("Fetching all bookings");
-        List<Booking> bookings =  bookingRepository.findAll();
+        List<BookingSummary> bookings = bookingRepository.findAllSummaries();
         if (bookings.isEmpty()) {
             throw new ResourceNotFoundException("No bookings found");
         }
         return bookings;
     }
 
+    public CursorPage<Booking> getBookingsPage(String cursor, int size) {
+        log.debug("Fetching bookings page after cursor: {}", cursor);
+        int pageSize = KeysetCursor.clampPageSize(size);
+        List<Booking> rows = bookingRepository.findByIdGreaterThanOrderByIdAsc(KeysetCursor.decode(cursor),
+                PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, Booking::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportBookings(OutputStream out) throws IOException {
+        log.debug("Exporting all bookings as NDJSON");
+        try (Stream<Booking> bookings = bookingRepository.streamAllOrderById()) {
+            long exported = ndjsonExporter.export(bookings, out);
+            log.info("Exported {} bookings", exported);
+            return exported;
+        }
+    }
+
     public Optional<Booking> getBookingById(Long bookingId) {
         log.debug("Fetching booking by id: {}", bookingId);
         return bookingRepository.findById(bookingId);
     }
 
-    public List<Booking> getBookingsByUser(String user) {
+    public List<BookingSummary> getBookingsByUser(String user) {
         log.debug("Fetching bookings of user: {}", user);
-        List<Booking> bookings = bookingRepository.findByUser(user);
+        List<BookingSummary> bookings = bookingRepository.findSummariesByUser(user);
         if (bookings.isEmpty()) {
             throw new ResourceNotFoundException("No bookings found for user: " + user);
         }
         return bookings;
     }
-}
\ No newline at end of file
+
+    public Optional<Booking> getBookingByTicketId(Long ticketId) {
+        log.debug("Fetching booking of ticket id: {}", ticketId);
+        return bookingRepository.findByTicketId(ticketId);
+    }
+
+    public List<BookingSummary> getBookingsBetween(LocalDateTime from, LocalDateTime to, int size) {
+        log.debug("Fetching bookings made between {} and {}", from, to);
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("Booking date range starts after it ends");
+        }
+        return bookingRepository.findSummariesByBookingDateBetween(from, to,
+                PageRequest.of(0, KeysetCursor.clampPageSize(size)));
+    }
+
+    public SeatHold holdTicket(Ticket ticket) {
+        log.debug("Holding ticket id: {}", ticket.getId());
+        return seatHoldRegistry.hold(ticket)
+                .orElseThrow(() -> new ResourceAlreadyExistsException("Ticket is not available for hold, ticket ID: " + ticket.getId()));
+    }
+
+    public Booking confirmHold(String holdId, String user) {
+        log.debug("Confirming hold: {}", holdId);
+        SeatHold hold = seatHoldRegistry.claim(holdId)
+                .orElseThrow(() -> new ResourceNotFoundException("Hold not found or expired: " + holdId));
+        Long ticketId = hold.getTicket().getId();
+        Booking booking = new Booking(null, hold.getTicket(), user, LocalDateTime.now(), null);
+        try {
+            return bookingRepository.save(booking);
+        } catch (RuntimeException e) {
+            seatInventory.release(ticketId);
+            throw e;
+        }
+    }
+
+    public void releaseHold(String holdId) {
+        log.debug("Releasing hold: {}", holdId);
+        if (!seatHoldRegistry.release(holdId)) {
+            throw new ResourceNotFoundException("Hold not found or expired: " + holdId);
+        }
+    }
+}
@@ -1,55 +1,159 @@
 package com.ticketing.tickets.service.impl;
 
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.ticketing.tickets.configuration.BlockingTaskExecutors;
 import com.ticketing.tickets.entity.Event;
 import com.ticketing.tickets.exception.ResourceNotFoundException;
+import com.ticketing.tickets.exception.ServiceUnavailableException;
+import com.ticketing.tickets.resilience.Bulkhead;
+import com.ticketing.tickets.resilience.CircuitBreaker;
 import com.ticketing.tickets.service.EventService;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.net.URI;
-import java.net.URL;
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
+/**
+ * Events live in an external API, so reads are served from in-memory caches. The caches hold
+ * futures: concurrent lookups of the same id, or of the list, share one in-flight upstream call
+ * instead of each making their own (single flight). An entry older than {@code refresh-after} is
+ * still returned, and a reload runs in the background (stale-while-revalidate). Only an entry
+ * older than {@code expire-after} blocks on the remote call. A failed background reload keeps
+ * the old entry. Writes go to the API and then update or invalidate the cached entries.
+ * <p>
+ * Every remote call passes through a bulkhead and a circuit breaker. When the API is slow or
+ * failing, callers get a {@link ServiceUnavailableException} straight away instead of waiting on
+ * it, and the event list falls back to an empty list when nothing is cached.
+ */
 @Service
+@Timed("tickets.service")
 @Log4j2
 public class EventServiceImpl implements EventService {
 
+    private static final String MOCK_API_RESPONSE_LOG = "MockAPI Response: {}";
+    private static final String ALL_EVENTS = "all";
+    private static final String EVENTS_UNAVAILABLE = "Events service is temporarily unavailable";
+
     private RestTemplate restTemplate;
+    private final String apiUrl;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final MeterRegistry meterRegistry;
+    private final AsyncLoadingCache<String, List<Event>> allEvents;
+    private final AsyncLoadingCache<String, Event> eventsById;
+    private final ExecutorService ownedExecutor;
+
+    @Autowired
+    public EventServiceImpl(RestTemplate restTemplate, CircuitBreaker eventsCircuitBreaker, Bulkhead eventsBulkhead,
+                            BlockingTaskExecutors taskExecutors, MeterRegistry meterRegistry,
+                            @Value("${tickets.events.api-url:https://66be4c7774dfc195586f1cc1.mockapi.io/api/events}") String apiUrl,
+                            @Value("${tickets.events.cache.refresh-after:1m}") Duration refreshAfter,
+                            @Value("${tickets.events.cache.expire-after:1h}") Duration expireAfter) {
+        this(restTemplate, eventsCircuitBreaker, eventsBulkhead, meterRegistry, apiUrl, refreshAfter, expireAfter,
+                Ticker.systemTicker(), taskExecutors.newUnboundedExecutor("events-api"));
+    }
 
-    public EventServiceImpl(RestTemplate restTemplate) {
+    EventServiceImpl(RestTemplate restTemplate, CircuitBreaker circuitBreaker, Bulkhead bulkhead, MeterRegistry meterRegistry,
+                     String apiUrl, Duration refreshAfter, Duration expireAfter, Ticker ticker, Executor loadExecutor) {
         this.restTemplate = restTemplate;
+        this.ownedExecutor = loadExecutor instanceof ExecutorService executorService ? executorService : null;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.meterRegistry = meterRegistry;
+        this.apiUrl = apiUrl;
+        this.allEvents = Caffeine.newBuilder()
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .ticker(ticker)
+                .executor(loadExecutor)
+                .buildAsync(key -> fetchAllEvents());
+        this.eventsById = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .ticker(ticker)
+                .executor(loadExecutor)
+                .buildAsync(this::fetchEvent);
     }
 
-    private static final String MOCK_API_URL = "https://66be4c7774dfc195586f1cc1.mockapi.io/api/events";
-    private static final String MOCK_API_RESPONSE_LOG = "MockAPI Response: {}";
+    // Loads the event list in the background at startup so the first page view is served from memory.
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        allEvents.synchronous().refresh(ALL_EVENTS).whenComplete((events, error) -> {
+            if (error != null) {
+                log.warn("Could not preload events: {}", error.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
 
     @Override
     public Event saveEvent(Event event) {
         log.debug("Creating event: {}", event);
         Date currentDate = new Date();
         event.setDate(currentDate);
-        Event mockApiResponse = restTemplate.postForObject(MOCK_API_URL, event, Event.class);
+        Event mockApiResponse = callApi("create", () -> restTemplate.postForObject(apiUrl, event, Event.class));
         log.debug(MOCK_API_RESPONSE_LOG, mockApiResponse);
+        if (mockApiResponse != null && mockApiResponse.getId() != null) {
+            eventsById.put(mockApiResponse.getId(), CompletableFuture.completedFuture(mockApiResponse));
+        }
+        allEvents.synchronous().invalidate(ALL_EVENTS);
         return mockApiResponse;
     }
 
     @Override
     public List<Event> getAllEvents() {
         log.debug("Fetching all events");
-        List<Event>  mockApiResponse = restTemplate.getForObject(MOCK_API_URL,List.class);
-        log.debug(MOCK_API_RESPONSE_LOG, (Object) mockApiResponse);
-        return mockApiResponse;
+        try {
+            return join(allEvents.get(ALL_EVENTS));
+        } catch (ServiceUnavailableException e) {
+            log.warn("Serving an empty event list: {}", e.getMessage());
+            return List.of();
+        }
     }
 
     @Override
     public Event getEventById(String id) {
         log.debug("Fetching event by id: {}", id);
-        Event mockApiResponse = restTemplate.getForObject(MOCK_API_URL + "/" + id, Event.class);
+        return join(eventsById.get(id));
+    }
+
+    private List<Event> fetchAllEvents() {
+        List<Event>  mockApiResponse = callApi("list", () -> restTemplate.getForObject(apiUrl,List.class));
+        log.debug(MOCK_API_RESPONSE_LOG, (Object) mockApiResponse);
+        return mockApiResponse;
+    }
+
+    private Event fetchEvent(String id) {
+        Event mockApiResponse = callApi("get", () -> restTemplate.getForObject(apiUrl + "/" + id, Event.class));
         log.debug(MOCK_API_RESPONSE_LOG, mockApiResponse);
         return mockApiResponse;
     }
@@ -57,27 +161,89 @@ public class EventServiceImpl implements EventService {
     @Override
     public Event updateEvent(Long id, Event event) {
         log.debug("Updating event id: {}", id);
-        String url = MOCK_API_URL + "/" + id;
-
-        Event existingEvent = restTemplate.getForObject(url, Event.class);
+        String url = apiUrl + "/" + id;
 
-        Date currentDate = new Date();
-        existingEvent.setDate(currentDate);
-        existingEvent.setName(event.getName());
-        existingEvent.setLocation(event.getLocation());
-        restTemplate.put(url, existingEvent);
-
-        Event updatedEvent = restTemplate.getForObject(url, Event.class);
+        // name, location and date are all the fields an event has besides its id, so the PUT body
+        // can be built without reading the event first, and the API answers with the stored event
+        Event changes = new Event(String.valueOf(id), event.getName(), new Date(), event.getLocation());
+        Event updatedEvent;
+        try {
+            updatedEvent = callApi("update", () -> restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(changes), Event.class)
+                    .getBody());
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new ResourceNotFoundException("Event not found with id: " + id);
+        }
         log.debug(MOCK_API_RESPONSE_LOG, updatedEvent);
+        if (updatedEvent != null) {
+            eventsById.put(String.valueOf(id), CompletableFuture.completedFuture(updatedEvent));
+        } else {
+            eventsById.synchronous().invalidate(String.valueOf(id));
+        }
+        allEvents.synchronous().invalidate(ALL_EVENTS);
         return updatedEvent;
     }
 
     @Override
     public void deleteEvent(Long id) {
         log.debug("Deleting event id: {}", id);
-        String url = MOCK_API_URL + "/" + id;
-        restTemplate.delete(url);
+        String url = apiUrl + "/" + id;
+        callApi("delete", () -> {
+            restTemplate.delete(url);
+            return null;
+        });
         log.debug("MockAPI Response: Event deleted");
+        eventsById.synchronous().invalidate(String.valueOf(id));
+        allEvents.synchronous().invalidate(ALL_EVENTS);
+
+    }
+
+    // Waits for a shared in-flight call and rethrows its failure as thrown by the call itself.
+    private static <T> T join(CompletableFuture<T> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
+    private <T> T callApi(String operation, Supplier<T> request) {
+        if (!bulkhead.tryAcquire()) {
+            throw new ServiceUnavailableException(EVENTS_UNAVAILABLE);
+        }
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new ServiceUnavailableException(EVENTS_UNAVAILABLE);
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "error";
+            try {
+                T response = request.get();
+                circuitBreaker.onSuccess();
+                outcome = "success";
+                return response;
+            } catch (HttpClientErrorException e) {
+                // the API answered, only this request was wrong
+                circuitBreaker.onSuccess();
+                outcome = "client_error";
+                throw e;
+            } catch (RestClientException e) {
+                circuitBreaker.onFailure();
+                throw new ServiceUnavailableException(EVENTS_UNAVAILABLE, e);
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+                throw e;
+            } finally {
+                sample.stop(Timer.builder("tickets.events.api")
+                        .description("Latency of calls to the external events API")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry));
+            }
+        } finally {
+            bulkhead.release();
+        }
     }
 }
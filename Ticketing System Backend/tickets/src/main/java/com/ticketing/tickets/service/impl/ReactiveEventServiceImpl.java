@@ -0,0 +1,189 @@
+package com.ticketing.tickets.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ticketing.tickets.entity.Event;
+import com.ticketing.tickets.exception.ResourceNotFoundException;
+import com.ticketing.tickets.exception.ServiceUnavailableException;
+import com.ticketing.tickets.resilience.CircuitBreaker;
+import com.ticketing.tickets.service.ReactiveEventService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking gateway to the external events API over a Reactor Netty {@link WebClient}. No
+ * thread waits on the API: calls are started on the caller's thread and complete on the client's
+ * event loop, so a handful of event-loop threads carry any number of in-flight requests.
+ * <p>
+ * Caching matches {@link EventServiceImpl}: concurrent lookups share one in-flight call, stale
+ * entries are served while a reload runs, and writes update or invalidate the cache. Calls go
+ * through the same circuit breaker. Instead of the blocking bulkhead, excess load is shed by the
+ * connection pool's bounded queue of pending acquires.
+ */
+@Service
+@ConditionalOnProperty(name = "tickets.events.gateway", havingValue = "reactive")
+@Log4j2
+public class ReactiveEventServiceImpl implements ReactiveEventService {
+
+    private static final String MOCK_API_RESPONSE_LOG = "MockAPI Response: {}";
+    private static final String ALL_EVENTS = "all";
+    private static final String EVENTS_UNAVAILABLE = "Events service is temporarily unavailable";
+
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final String apiUrl;
+    private final AsyncLoadingCache<String, List<Event>> allEvents;
+    private final AsyncLoadingCache<String, Event> eventsById;
+
+    public ReactiveEventServiceImpl(WebClient eventsWebClient, CircuitBreaker eventsCircuitBreaker, MeterRegistry meterRegistry,
+                                    @Value("${tickets.events.api-url:https://66be4c7774dfc195586f1cc1.mockapi.io/api/events}") String apiUrl,
+                                    @Value("${tickets.events.cache.refresh-after:1m}") Duration refreshAfter,
+                                    @Value("${tickets.events.cache.expire-after:1h}") Duration expireAfter) {
+        this.webClient = eventsWebClient;
+        this.circuitBreaker = eventsCircuitBreaker;
+        this.meterRegistry = meterRegistry;
+        this.apiUrl = apiUrl;
+        this.allEvents = Caffeine.newBuilder()
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .buildAsync((key, executor) -> fetchAllEvents());
+        this.eventsById = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .buildAsync((id, executor) -> fetchEvent(id));
+    }
+
+    @Override
+    public Mono<Event> saveEvent(Event event) {
+        log.debug("Creating event: {}", event);
+        event.setDate(new Date());
+        return toMono(() -> call("create", webClient.post().uri(apiUrl).bodyValue(event).retrieve().bodyToMono(Event.class))
+                .thenApply(savedEvent -> {
+                    log.debug(MOCK_API_RESPONSE_LOG, savedEvent);
+                    if (savedEvent != null && savedEvent.getId() != null) {
+                        eventsById.put(savedEvent.getId(), CompletableFuture.completedFuture(savedEvent));
+                    }
+                    allEvents.synchronous().invalidate(ALL_EVENTS);
+                    return savedEvent;
+                }));
+    }
+
+    @Override
+    public Flux<Event> getAllEvents() {
+        log.debug("Fetching all events");
+        return toMono(() -> allEvents.get(ALL_EVENTS))
+                .flatMapIterable(events -> events)
+                .onErrorResume(ServiceUnavailableException.class, e -> {
+                    log.warn("Serving an empty event list: {}", e.getMessage());
+                    return Flux.empty();
+                });
+    }
+
+    @Override
+    public Mono<Event> getEventById(String id) {
+        log.debug("Fetching event by id: {}", id);
+        return toMono(() -> eventsById.get(id))
+                .onErrorMap(WebClientResponseException.NotFound.class,
+                        e -> new ResourceNotFoundException("Event not found with id: " + id));
+    }
+
+    @Override
+    public Mono<Event> updateEvent(Long id, Event event) {
+        log.debug("Updating event id: {}", id);
+        Event changes = new Event(String.valueOf(id), event.getName(), new Date(), event.getLocation());
+        return toMono(() -> call("update", webClient.put().uri(apiUrl + "/{id}", id).bodyValue(changes).retrieve().bodyToMono(Event.class))
+                .thenApply(updatedEvent -> {
+                    log.debug(MOCK_API_RESPONSE_LOG, updatedEvent);
+                    if (updatedEvent != null) {
+                        eventsById.put(String.valueOf(id), CompletableFuture.completedFuture(updatedEvent));
+                    } else {
+                        eventsById.synchronous().invalidate(String.valueOf(id));
+                    }
+                    allEvents.synchronous().invalidate(ALL_EVENTS);
+                    return updatedEvent;
+                }))
+                .onErrorMap(WebClientResponseException.NotFound.class,
+                        e -> new ResourceNotFoundException("Event not found with id: " + id));
+    }
+
+    @Override
+    public Mono<Void> deleteEvent(Long id) {
+        log.debug("Deleting event id: {}", id);
+        return toMono(() -> call("delete", webClient.delete().uri(apiUrl + "/{id}", id).retrieve().toBodilessEntity())
+                .thenApply(response -> {
+                    log.debug("MockAPI Response: Event deleted");
+                    eventsById.synchronous().invalidate(String.valueOf(id));
+                    allEvents.synchronous().invalidate(ALL_EVENTS);
+                    return null;
+                }))
+                .then();
+    }
+
+    private CompletableFuture<List<Event>> fetchAllEvents() {
+        return call("list", webClient.get().uri(apiUrl).retrieve().bodyToFlux(Event.class).collectList());
+    }
+
+    private CompletableFuture<Event> fetchEvent(String id) {
+        return call("get", webClient.get().uri(apiUrl + "/{id}", id).retrieve().bodyToMono(Event.class));
+    }
+
+    // Subscribes lazily, but a cancelled subscriber does not cancel the call: it may be shared
+    // with other callers through the cache, and its outcome still has to reach the breaker.
+    private static <T> Mono<T> toMono(Supplier<CompletableFuture<T>> call) {
+        return Mono.fromFuture(call, true);
+    }
+
+    private <T> CompletableFuture<T> call(String operation, Mono<T> request) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new ServiceUnavailableException(EVENTS_UNAVAILABLE));
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return request
+                .doOnSuccess(response -> {
+                    circuitBreaker.onSuccess();
+                    sample.stop(apiTimer(operation, "success"));
+                })
+                .doOnError(e -> {
+                    if (isClientError(e)) {
+                        // the API answered, only this request was wrong
+                        circuitBreaker.onSuccess();
+                        sample.stop(apiTimer(operation, "client_error"));
+                    } else {
+                        circuitBreaker.onFailure();
+                        sample.stop(apiTimer(operation, "error"));
+                    }
+                })
+                .onErrorMap(e -> e instanceof WebClientException && !isClientError(e),
+                        e -> new ServiceUnavailableException(EVENTS_UNAVAILABLE, e))
+                .toFuture();
+    }
+
+    private Timer apiTimer(String operation, String outcome) {
+        return Timer.builder("tickets.events.api")
+                .description("Latency of calls to the external events API")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static boolean isClientError(Throwable e) {
+        return e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError();
+    }
+}
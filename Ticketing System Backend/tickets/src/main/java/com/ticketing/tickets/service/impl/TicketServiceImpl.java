@@ -1,63 +1,155 @@
 package com.ticketing.tickets.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.configuration.BlockingTaskExecutors;
+import com.ticketing.tickets.dto.CursorPage;
+import com.ticketing.tickets.entity.OutboxOperation;
 import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.entity.TicketOutbox;
+import com.ticketing.tickets.exception.InvalidRequestException;
+import com.ticketing.tickets.exception.PreconditionFailedException;
 import com.ticketing.tickets.exception.ResourceNotFoundException;
+import com.ticketing.tickets.inventory.SeatInventory;
+import com.ticketing.tickets.repository.TicketOutboxRepository;
 import com.ticketing.tickets.repository.TicketRepository;
+import com.ticketing.tickets.resilience.OptimisticRetry;
 import com.ticketing.tickets.service.TicketService;
+import com.ticketing.tickets.storage.S3TicketCache;
+import com.ticketing.tickets.storage.S3TicketMirror;
+import com.ticketing.tickets.storage.SegmentManifest;
+import com.ticketing.tickets.storage.TicketSegmentStore;
+import com.ticketing.tickets.util.KeysetCursor;
+import com.ticketing.tickets.util.NdjsonExporter;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.sync.RequestBody;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
+@Timed("tickets.service")
 @Log4j2
 public class TicketServiceImpl implements TicketService {
 
     private final TicketRepository ticketRepository;
     private final S3Client amazonS3;
+    private final NdjsonExporter ndjsonExporter;
+    private final SeatInventory seatInventory;
+    private final TicketOutboxRepository outboxRepository;
+    private final TicketSegmentStore segmentStore;
+    private final S3TicketCache ticketCache;
+    private final S3TicketMirror ticketMirror;
+    private final OptimisticRetry ticketUpdateRetry;
+    private final TransactionOperations transactionOperations;
+    private final EntityManagerFactory entityManagerFactory;
     private static final String BUCKET_NAME = "my-op-bucket";
     private static final String TICKET_PREFIX = "tickets/Ticket_";
     private static final String JSON_EXTENSION = ".json";
+    private static final int S3_MAX_KEYS = 1000;
+    private static final int S3_FETCH_CONCURRENCY = 16;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService s3FetchExecutor;
 
-    public TicketServiceImpl(TicketRepository ticketRepository, S3Client amazonS3) {
+    public TicketServiceImpl(TicketRepository ticketRepository, S3Client amazonS3, NdjsonExporter ndjsonExporter,
+                             SeatInventory seatInventory, TicketOutboxRepository outboxRepository,
+                             TicketSegmentStore segmentStore, S3TicketCache ticketCache,
+                             S3TicketMirror ticketMirror, BlockingTaskExecutors taskExecutors,
+                             OptimisticRetry ticketUpdateRetry, TransactionOperations transactionOperations,
+                             EntityManagerFactory entityManagerFactory) {
         this.ticketRepository = ticketRepository;
         this.amazonS3 = amazonS3;
+        this.ndjsonExporter = ndjsonExporter;
+        this.seatInventory = seatInventory;
+        this.outboxRepository = outboxRepository;
+        this.segmentStore = segmentStore;
+        this.ticketCache = ticketCache;
+        this.ticketMirror = ticketMirror;
+        this.ticketUpdateRetry = ticketUpdateRetry;
+        this.transactionOperations = transactionOperations;
+        this.entityManagerFactory = entityManagerFactory;
+        this.s3FetchExecutor = taskExecutors.newBoundedExecutor("ticket-s3-fetch", S3_FETCH_CONCURRENCY);
     }
 
     @Override
+    @Transactional
     public Ticket saveTicket(Ticket ticket) {
         log.debug("Creating ticket: {}", ticket);
+        // a create always inserts: with a null version the ticket is new, whatever id the client sent
+        ticket.setId(null);
+        ticket.setVersion(null);
         Ticket savedTicket = ticketRepository.save(ticket);
+        seatInventory.register(savedTicket.getId());
         saveTicketToS3(savedTicket);
         return savedTicket;
     }
 
-    // New method to save and update ticket in S3
+    @Override
+    @Transactional
+    public List<Ticket> saveTickets(List<Ticket> tickets) {
+        log.debug("Creating {} tickets in bulk", tickets.size());
+        Set<String> seats = new HashSet<>();
+        for (Ticket ticket : tickets) {
+            if (!seats.add(ticket.getEvent() + "|" + ticket.getSeat())) {
+                throw new InvalidRequestException("Duplicate seat in batch: " + ticket.getSeat() + " for event: " + ticket.getEvent());
+            }
+            ticket.setId(null);
+        }
+        List<Ticket> savedTickets = ticketRepository.insertAll(tickets);
+        savedTickets.forEach(ticket -> seatInventory.register(ticket.getId()));
+        List<TicketOutbox> outbox = new ArrayList<>(savedTickets.size());
+        for (Ticket ticket : savedTickets) {
+            outbox.add(outboxEntry(ticket.getId(), OutboxOperation.UPSERT, serialize(ticket)));
+        }
+        outboxRepository.saveAll(outbox);
+        log.info("Created {} tickets in bulk", savedTickets.size());
+        return savedTickets;
+    }
+
+    // New method to save and update ticket in S3. The change is recorded in the outbox within the
+    // caller's transaction and replicated to S3 by the outbox relay after commit.
     private void saveTicketToS3(Ticket ticket) {
         log.debug("Saving ticket to S3: {}", ticket);
-        String key = TICKET_PREFIX + ticket.getId() + JSON_EXTENSION;
-        try {
-            // Serialize Ticket object to JSON string
-            String jsonString = objectMapper.writeValueAsString(ticket);
+        outboxRepository.save(outboxEntry(ticket.getId(), OutboxOperation.UPSERT, serialize(ticket)));
+        ticketCache.invalidate(ticket.getId());
+    }
 
-            // Save JSON string to S3
-            amazonS3.putObject(PutObjectRequest.builder()
-                            .bucket(BUCKET_NAME)
-                            .key(key)
-                            .build(),
-                    RequestBody.fromString(jsonString));
-            log.info("Ticket saved to S3 with key: {}", key);
-        } catch (S3Exception e) {
-            log.error("Failed to save ticket to S3: {}", e.awsErrorDetails().errorMessage());
-        } catch (Exception e) {
-            log.error("An unexpected error occurred while saving ticket to S3: {}", e.getMessage(), e);
+    private TicketOutbox outboxEntry(Long ticketId, OutboxOperation operation, String payload) {
+        String key = TICKET_PREFIX + ticketId + JSON_EXTENSION;
+        return new TicketOutbox(null, ticketId, operation, BUCKET_NAME, key, payload, LocalDateTime.now(), null);
+    }
+
+    private String serialize(Ticket ticket) {
+        try {
+            return objectMapper.writeValueAsString(ticket);
+        } catch (JsonProcessingException e) {
+            // a Ticket always serializes, anything else is a programming error
+            throw new IllegalStateException("Failed to serialize ticket: " + ticket.getId(), e);
         }
     }
 
@@ -71,6 +163,26 @@ public class TicketServiceImpl implements TicketService {
         return tickets;
     }
 
+    @Override
+    public CursorPage<Ticket> getTicketsPage(String cursor, int size) {
+        log.debug("Fetching tickets page after cursor: {}", cursor);
+        int pageSize = KeysetCursor.clampPageSize(size);
+        List<Ticket> rows = ticketRepository.findByIdGreaterThanOrderByIdAsc(KeysetCursor.decode(cursor),
+                PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, Ticket::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportTickets(OutputStream out) throws IOException {
+        log.debug("Exporting all tickets as NDJSON");
+        try (Stream<Ticket> tickets = ticketRepository.streamAllOrderById()) {
+            long exported = ndjsonExporter.export(tickets, out);
+            log.info("Exported {} tickets", exported);
+            return exported;
+        }
+    }
+
     @Override
     public Optional<Ticket> getTicketById(Long id) {
         log.debug("Fetching ticket by id: {}", id);
@@ -78,10 +190,57 @@ public class TicketServiceImpl implements TicketService {
     }
 
     @Override
+    public List<Ticket> getTicketsByIds(Collection<Long> ids) {
+        log.debug("Fetching tickets by ids: {}", ids);
+        return ticketRepository.findAllById(ids);
+    }
+
+    // The version column makes every update optimistic: a write that raced another one since the
+    // ticket was read fails at commit with an OptimisticLockingFailureException, and nothing is
+    // overwritten. No row lock is held while the ticket is being changed.
+    @Override
+    @Transactional
     public Ticket updateTicket(Long id, Ticket ticket) {
         log.debug("Updating ticket id: {}", id);
+        return applyUpdate(id, ticket, null);
+    }
+
+    @Override
+    @Transactional
+    public Ticket updateTicket(Long id, Ticket ticket, Set<Long> expectedVersions) {
+        log.debug("Updating ticket id: {} at one of versions: {}", id, expectedVersions);
+        return applyUpdate(id, ticket, expectedVersions);
+    }
+
+    // Each ticket is updated in a transaction of its own, so a conflict only repeats that ticket.
+    // Tickets updated before a failing one stay updated.
+    @Override
+    public List<Ticket> updateTickets(List<Ticket> tickets) {
+        log.debug("Updating {} tickets in bulk", tickets.size());
+        Set<Long> ids = new HashSet<>();
+        for (Ticket ticket : tickets) {
+            if (ticket.getId() == null) {
+                throw new InvalidRequestException("Ticket id is required for a bulk update");
+            }
+            if (!ids.add(ticket.getId())) {
+                throw new InvalidRequestException("Duplicate ticket in batch: " + ticket.getId());
+            }
+        }
+        List<Ticket> updatedTickets = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            updatedTickets.add(ticketUpdateRetry.call(() ->
+                    transactionOperations.execute(status -> applyUpdate(ticket.getId(), ticket, null))));
+        }
+        log.info("Updated {} tickets in bulk", updatedTickets.size());
+        return updatedTickets;
+    }
+
+    private Ticket applyUpdate(Long id, Ticket ticket, Set<Long> expectedVersions) {
         Ticket existingTicket = ticketRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ticket not found with id: " + id));
+        if (expectedVersions != null && !expectedVersions.contains(existingTicket.getVersion())) {
+            throw new PreconditionFailedException("Ticket " + id + " has changed, current version is " + existingTicket.getVersion());
+        }
         existingTicket.setEvent(ticket.getEvent());
         existingTicket.setSeat(ticket.getSeat());
         existingTicket.setPrice(ticket.getPrice());
@@ -92,28 +251,75 @@ public class TicketServiceImpl implements TicketService {
     }
 
     @Override
+    @Transactional
     public void deleteTicket(Long id) {
         log.debug("Deleting ticket id: {}", id);
         Ticket existingTicket = ticketRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ticket not found with id: " + id));
         ticketRepository.delete(existingTicket);
+        outboxRepository.save(outboxEntry(id, OutboxOperation.DELETE, null));
+        ticketCache.invalidate(id);
+        seatInventory.remove(id);
+        evictFromSecondLevelCacheAfterCommit(id);
+    }
+
+    // READ_WRITE keeps an unlocked lock entry for a deleted ticket until it expires; drop it once the
+    // delete is committed, so the region holds no entry for a row that no longer exists
+    private void evictFromSecondLevelCacheAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entityManagerFactory.getCache().evict(Ticket.class, id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(Ticket.class, id);
+            }
+        });
     }
 
     // New method to get ticket from S3
     public Ticket getTicketFromS3(Long id) {
         log.debug("Getting ticket from S3 with id: {}", id);
         String key = TICKET_PREFIX + id + JSON_EXTENSION;
+        S3TicketCache.CachedTicket cached = null;
+        long generation = ticketCache.generation(id);
         try {
+            if (segmentStore.isActive()) {
+                Optional<Ticket> packed = segmentStore.read(id);
+                if (packed.isPresent()) {
+                    return packed.get();
+                }
+                // created or changed since the last snapshot, the per-object key is current
+            }
+            if (ticketMirror.isReady()) {
+                Optional<Ticket> mirrored = ticketMirror.read(id);
+                if (mirrored.isPresent()) {
+                    return mirrored.get();
+                }
+            }
+            cached = ticketCache.get(id);
+            if (cached != null && ticketCache.isFresh(cached)) {
+                return cached.ticket();
+            }
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                     .bucket(BUCKET_NAME)
                     .key(key)
+                    .ifNoneMatch(cached != null ? cached.eTag() : null)
                     .build();
-            String ticketJson = amazonS3.getObjectAsBytes(getObjectRequest).asUtf8String();
-            return objectMapper.readValue(ticketJson, Ticket.class);
+            ResponseBytes<GetObjectResponse> object = amazonS3.getObjectAsBytes(getObjectRequest);
+            Ticket ticket = objectMapper.readValue(object.asUtf8String(), Ticket.class);
+            ticketCache.put(id, ticket, object.response().eTag(), generation);
+            return ticket;
         } catch (NoSuchKeyException e) {
             log.error("Ticket not found in S3 with id: {}", id);
+            ticketCache.invalidate(id);
             throw new ResourceNotFoundException("Ticket not found in S3 with id: " + id);
         } catch (S3Exception e) {
+            if (cached != null && e.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                ticketCache.revalidated(id, cached);
+                return cached.ticket();
+            }
             log.error("Failed to get ticket from S3: {}", e.awsErrorDetails().errorMessage());
             throw new ResourceNotFoundException("Failed to get ticket from S3");
         } catch (Exception e) {
@@ -122,26 +328,37 @@ public class TicketServiceImpl implements TicketService {
         }
     }
 
-    // New method to get all tickets from S3
+    // New method to get all tickets from S3. With the segment layout this reads the packed snapshot, and with the local
+    // mirror enabled the mirrored objects, in both cases taking tickets changed since then from their own objects;
+    // otherwise it follows continuation tokens past the 1000-key limit of a single listing and downloads each page on
+    // the fetch pool while the next page is being listed.
     public List<Ticket> getAllTicketsFromS3() {
         log.debug("Getting all tickets from S3");
         List<Ticket> tickets = new ArrayList<>();
         try {
-            ListObjectsV2Request listObjects = ListObjectsV2Request.builder()
-                    .bucket(BUCKET_NAME)
-                    .prefix("tickets/")
-                    .build();
-            ListObjectsV2Response listObjectsResponse = amazonS3.listObjectsV2(listObjects);
-
-            for (S3Object s3Object : listObjectsResponse.contents()) {
-                String key = s3Object.key();
-                String ticketJson = amazonS3.getObjectAsBytes(GetObjectRequest.builder()
-                                .bucket(BUCKET_NAME)
-                                .key(key)
-                                .build())
-                        .asUtf8String();
-                Ticket ticket = objectMapper.readValue(ticketJson, Ticket.class);
-                tickets.add(ticket);
+            if (segmentStore.isActive()) {
+                Set<Long> changed = segmentStore.changedSinceSnapshot();
+                tickets = withChangedFromObjects(segmentStore::readAll, changed);
+                log.info("Fetched {} tickets from S3 segments, {} changed since the snapshot", tickets.size(), changed.size());
+                return tickets;
+            }
+            if (ticketMirror.isReady()) {
+                Set<Long> changed = ticketMirror.changedSinceSync();
+                tickets = withChangedFromObjects(ticketMirror::readAll, changed);
+                log.info("Fetched {} tickets from the local S3 mirror, {} changed since the last sync", tickets.size(), changed.size());
+                return tickets;
+            }
+            ListObjectsV2Response listing = listTicketObjects(null, S3_MAX_KEYS);
+            while (true) {
+                List<CompletableFuture<Ticket>> downloads = fetchTicketsAsync(keys(listing));
+                ListObjectsV2Response next = Boolean.TRUE.equals(listing.isTruncated())
+                        ? listTicketObjects(listing.nextContinuationToken(), S3_MAX_KEYS)
+                        : null;
+                tickets.addAll(joinAll(downloads));
+                if (next == null) {
+                    break;
+                }
+                listing = next;
             }
             log.info("Fetched {} tickets from S3", tickets.size());
         } catch (S3Exception e) {
@@ -154,11 +371,114 @@ public class TicketServiceImpl implements TicketService {
         return tickets;
     }
 
+    // New method to get one page of tickets from S3. The S3 continuation token is passed through as the cursor.
+    public CursorPage<Ticket> getTicketsPageFromS3(String continuationToken, int size) {
+        log.debug("Getting tickets page from S3 after token: {}", continuationToken);
+        int pageSize = Math.max(1, Math.min(size, S3_MAX_KEYS));
+        try {
+            ListObjectsV2Response listing = listTicketObjects(continuationToken, pageSize);
+            List<Ticket> tickets = joinAll(fetchTicketsAsync(keys(listing)));
+            String nextCursor = Boolean.TRUE.equals(listing.isTruncated()) ? listing.nextContinuationToken() : null;
+            return new CursorPage<>(tickets, tickets.size(), nextCursor);
+        } catch (S3Exception e) {
+            log.error("Failed to get tickets page from S3: {}", e.getMessage());
+            if (e.statusCode() == 400) {
+                throw new InvalidRequestException("Invalid cursor: " + continuationToken);
+            }
+            throw new ResourceNotFoundException("Failed to list tickets from S3");
+        } catch (Exception e) {
+            log.error("An unexpected error occurred while deserializing tickets from S3: {}", e.getMessage(), e);
+            throw new ResourceNotFoundException("Failed to deserialize tickets from S3");
+        }
+    }
+
+    // New method to pack all tickets into a segment snapshot in S3
+    public SegmentManifest snapshotTicketsToS3() {
+        log.debug("Writing ticket segment snapshot to S3");
+        return segmentStore.writeSnapshot();
+    }
+
+    private ListObjectsV2Response listTicketObjects(String continuationToken, int maxKeys) {
+        return amazonS3.listObjectsV2(ListObjectsV2Request.builder()
+                .bucket(BUCKET_NAME)
+                .prefix("tickets/")
+                .maxKeys(maxKeys)
+                .continuationToken(continuationToken)
+                .build());
+    }
+
+    // Reads a local or packed copy and replaces the tickets changed since it was taken with their own objects, which
+    // download while the copy is read. Deleted tickets have no object left and are dropped by joinAll.
+    private List<Ticket> withChangedFromObjects(Supplier<List<Ticket>> copy, Set<Long> changed) {
+        List<CompletableFuture<Ticket>> downloads = fetchTicketsAsync(changed.stream()
+                .map(changedId -> TICKET_PREFIX + changedId + JSON_EXTENSION)
+                .toList());
+        List<Ticket> tickets = new ArrayList<>(copy.get());
+        tickets.removeIf(ticket -> changed.contains(ticket.getId()));
+        tickets.addAll(joinAll(downloads));
+        tickets.sort(Comparator.comparing(Ticket::getId));
+        return tickets;
+    }
+
+    private List<CompletableFuture<Ticket>> fetchTicketsAsync(List<String> keys) {
+        List<CompletableFuture<Ticket>> downloads = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            downloads.add(CompletableFuture.supplyAsync(() -> fetchTicket(key), s3FetchExecutor));
+        }
+        return downloads;
+    }
+
+    private static List<String> keys(ListObjectsV2Response listing) {
+        return listing.contents().stream().map(S3Object::key).toList();
+    }
+
+    private Ticket fetchTicket(String key) {
+        try {
+            String ticketJson = amazonS3.getObjectAsBytes(GetObjectRequest.builder()
+                            .bucket(BUCKET_NAME)
+                            .key(key)
+                            .build())
+                    .asUtf8String();
+            return objectMapper.readValue(ticketJson, Ticket.class);
+        } catch (NoSuchKeyException e) {
+            // deleted between listing and download
+            log.debug("Ticket object vanished from S3: {}", key);
+            return null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize ticket object: " + key, e);
+        }
+    }
+
+    // Collects downloads in listing order, dropping objects that were deleted in the meantime.
+    private static List<Ticket> joinAll(List<CompletableFuture<Ticket>> downloads) {
+        List<Ticket> tickets = new ArrayList<>(downloads.size());
+        try {
+            for (CompletableFuture<Ticket> download : downloads) {
+                Ticket ticket = download.join();
+                if (ticket != null) {
+                    tickets.add(ticket);
+                }
+            }
+            return tickets;
+        } catch (CompletionException e) {
+            downloads.forEach(download -> download.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        s3FetchExecutor.shutdownNow();
+    }
 
     // New method to delete ticket from S3
     public void deleteTicketFromS3(Long id) {
         log.debug("Deleting ticket from S3 with id: {}", id);
         String key = TICKET_PREFIX + id + JSON_EXTENSION;
+        ticketCache.invalidate(id);
         try {
             amazonS3.deleteObject(DeleteObjectRequest.builder()
                     .bucket(BUCKET_NAME)
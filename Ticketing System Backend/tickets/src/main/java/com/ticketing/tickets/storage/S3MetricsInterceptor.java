@@ -0,0 +1,77 @@
+package com.ticketing.tickets.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every S3 call as {@code tickets.s3.requests}, tagged with the operation (GetObject,
+ * PutObject, ListObjectsV2, ...) and its outcome, and counts failed calls as
+ * {@code tickets.s3.failures}. A conditional GET answered with 304 and a read of a missing key are
+ * expected answers, so they are tagged but not counted as failures. Retries are part of the call.
+ */
+public class S3MetricsInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> STARTED_AT = new ExecutionAttribute<>("tickets.s3.started-at");
+
+    private final MeterRegistry meterRegistry;
+
+    public S3MetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(STARTED_AT, System.nanoTime());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        record(executionAttributes, "success");
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        Throwable error = context.exception();
+        if (error instanceof NoSuchKeyException) {
+            record(executionAttributes, "not_found");
+        } else if (error instanceof S3Exception s3Exception && s3Exception.statusCode() == 304) {
+            record(executionAttributes, "not_modified");
+        } else {
+            record(executionAttributes, "error");
+            Counter.builder("tickets.s3.failures")
+                    .description("S3 calls that failed after retries")
+                    .tag("operation", operation(executionAttributes))
+                    .tag("exception", error.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private void record(ExecutionAttributes executionAttributes, String outcome) {
+        Long startedAt = executionAttributes.getAttribute(STARTED_AT);
+        if (startedAt == null) {
+            return;
+        }
+        Timer.builder("tickets.s3.requests")
+                .description("Latency of S3 calls")
+                .tag("operation", operation(executionAttributes))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private static String operation(ExecutionAttributes executionAttributes) {
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        return operation != null ? operation : "unknown";
+    }
+}
@@ -0,0 +1,102 @@
+package com.ticketing.tickets.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ticketing.tickets.entity.Ticket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded cache of tickets read from S3, keyed by ticket id and evicted by Caffeine's W-TinyLFU
+ * policy. Each entry keeps the object's ETag: within {@code revalidate-after} of the last check
+ * an entry is served straight from memory, after that it is revalidated with a conditional GET,
+ * which costs a 304 when the object has not changed.
+ * <p>
+ * Invalidation is local to this instance; on other instances a changed ticket is picked up at
+ * its next revalidation. Every invalidation bumps the id's generation, and a read only caches
+ * what it fetched if the generation it saw before the GET is still current, so a slow GET that
+ * overlapped a write cannot put the old body back.
+ */
+@Component
+public class S3TicketCache {
+
+    // Generations are striped by id so they take fixed memory; ids sharing a stripe only cost an
+    // occasional skipped put
+    private static final int GENERATION_STRIPES = 4096;
+
+    private final Cache<Long, CachedTicket> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final long revalidateAfterNanos;
+
+    public S3TicketCache(MeterRegistry meterRegistry,
+                         @Value("${tickets.s3.cache.max-size:10000}") long maxSize,
+                         @Value("${tickets.s3.cache.revalidate-after:30s}") Duration revalidateAfter) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.revalidateAfterNanos = revalidateAfter.toNanos();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "tickets.s3");
+    }
+
+    /**
+     * Returns the cached entry for the ticket, or {@code null} when there is none.
+     */
+    public CachedTicket get(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    public boolean isFresh(CachedTicket entry) {
+        return System.nanoTime() - entry.validatedAt() < revalidateAfterNanos;
+    }
+
+    /**
+     * Returns the id's current generation. Read it before fetching and hand it to {@link #put}.
+     */
+    public long generation(Long id) {
+        return generations.get(stripe(id));
+    }
+
+    /**
+     * Caches a fetched ticket unless the id was invalidated since {@code generation} was read. The
+     * check runs inside the entry's compute, so an invalidation that lands after it still removes
+     * the entry.
+     */
+    public void put(Long id, Ticket ticket, String eTag, long generation) {
+        if (eTag != null) {
+            cache.asMap().compute(id, (key, existing) -> generation(id) == generation
+                    ? new CachedTicket(ticket, eTag, System.nanoTime())
+                    : existing);
+        }
+    }
+
+    /**
+     * Marks an entry as confirmed current by a 304. Only replaces the exact entry that was
+     * revalidated, so an invalidation that raced with the request is not undone.
+     */
+    public void revalidated(Long id, CachedTicket entry) {
+        cache.asMap().replace(id, entry, new CachedTicket(entry.ticket(), entry.eTag(), System.nanoTime()));
+    }
+
+    public void invalidate(Long id) {
+        // bump first: a put racing with this either sees the new generation or is removed below
+        generations.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (GENERATION_STRIPES - 1);
+    }
+
+    public record CachedTicket(Ticket ticket, String eTag, long validatedAt) {
+    }
+}
@@ -0,0 +1,435 @@
+package com.ticketing.tickets.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.ticketing.tickets.configuration.BlockingTaskExecutors;
+import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.repository.TicketOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional local mirror of the per-object ticket layout. Object bodies are appended to a
+ * memory-mapped data file and located through an in-memory offset index that is also written to
+ * disk, so a restart resumes from the last sync instead of downloading the whole prefix again.
+ * <p>
+ * A sync lists the {@code tickets/} prefix and downloads only keys that are new or whose ETag
+ * changed since they were mirrored; keys gone from S3 are dropped from the index. Superseded
+ * bodies stay in the data file until it fills up, at which point the live records are compacted
+ * into a fresh file. Reads parse tickets straight out of slices of the mapping.
+ * <p>
+ * The mirror is only as current as its last sync. Tickets whose outbox rows were shipped after that
+ * sync started, or are not shipped yet, are reported as changed and are not served from the mirror;
+ * and once the last sync is older than the outbox retention the rows needed for that check may be
+ * purged, so the mirror stops reporting itself ready.
+ * <p>
+ * Data files are numbered by generation, and the index names the generation its offsets belong
+ * to. Compaction writes the next generation's data file in full before the index is switched to
+ * it, so whichever index a crash leaves behind still describes a data file that is on disk.
+ */
+@Component
+@Log4j2
+public class S3TicketMirror {
+
+    private static final String BUCKET_NAME = "my-op-bucket";
+    private static final String TICKET_PREFIX = "tickets/Ticket_";
+    private static final String JSON_EXTENSION = ".json";
+    private static final String DATA_FILE_PREFIX = "tickets-";
+    private static final String DATA_FILE_SUFFIX = ".dat";
+    private static final String INDEX_FILE = "tickets.idx";
+    private static final String GENERATION_HEADER = "generation ";
+    private static final String SYNCED_AT_HEADER = "synced-at ";
+    private static final int DOWNLOAD_CONCURRENCY = 8;
+    // processedAt is stamped by whichever instance ran the relay, on its own clock
+    private static final Duration CLOCK_SKEW_GRACE = Duration.ofMinutes(1);
+
+    private final S3Client amazonS3;
+    private final ObjectMapper objectMapper;
+    private final TicketOutboxRepository outboxRepository;
+    private final Duration outboxRetention;
+    private final boolean enabled;
+    private final Path directory;
+    private final int capacity;
+    private final ExecutorService downloadExecutor;
+    // a lock rather than synchronized: a sync blocks on S3, which would pin a virtual carrier thread
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile MappedFile file;
+    // start of the last completed sync, which saw every write shipped before it; null until one completes
+    private volatile Instant syncedAt;
+
+    public S3TicketMirror(S3Client amazonS3, ObjectMapper objectMapper, BlockingTaskExecutors taskExecutors,
+                          TicketOutboxRepository outboxRepository,
+                          @Value("${tickets.outbox.retention:1h}") Duration outboxRetention,
+                          @Value("${tickets.s3.mirror.enabled:false}") boolean enabled,
+                          @Value("${tickets.s3.mirror.directory:${java.io.tmpdir}/ticket-mirror}") Path directory,
+                          @Value("${tickets.s3.mirror.max-size:256MB}") DataSize maxSize) {
+        this.amazonS3 = amazonS3;
+        this.objectMapper = objectMapper;
+        this.outboxRepository = outboxRepository;
+        this.outboxRetention = outboxRetention;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.capacity = (int) Math.min(maxSize.toBytes(), Integer.MAX_VALUE);
+        this.downloadExecutor = enabled ? taskExecutors.newBoundedExecutor("ticket-s3-mirror", DOWNLOAD_CONCURRENCY) : null;
+        if (enabled) {
+            this.file = open();
+        }
+    }
+
+    /**
+     * True when reads can be served from the mirror: it is enabled and has synced, now or before a
+     * restart, within the outbox retention.
+     */
+    public boolean isReady() {
+        Instant lastSync = syncedAt;
+        return enabled && lastSync != null
+                && lastSync.minus(CLOCK_SKEW_GRACE).isAfter(Instant.now().minus(outboxRetention));
+    }
+
+    /**
+     * Ids of tickets created, updated or deleted since the last sync. The mirror holds stale
+     * contents, or nothing, for these.
+     */
+    public Set<Long> changedSinceSync() {
+        return outboxRepository.findTicketIdsNotShippedBefore(changesSince());
+    }
+
+    public List<Ticket> readAll() {
+        MappedFile current = file;
+        List<Map.Entry<Long, Entry>> entries = new ArrayList<>(current.index.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        List<Ticket> tickets = new ArrayList<>(entries.size());
+        for (Map.Entry<Long, Entry> entry : entries) {
+            tickets.add(parse(current, entry.getValue()));
+        }
+        return tickets;
+    }
+
+    public Optional<Ticket> read(Long id) {
+        if (outboxRepository.existsChangeNotShippedBefore(id, changesSince())) {
+            return Optional.empty();
+        }
+        MappedFile current = file;
+        Entry entry = current.index.get(id);
+        return entry == null ? Optional.empty() : Optional.of(parse(current, entry));
+    }
+
+    public int size() {
+        return enabled ? file.index.size() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.s3.mirror.sync-interval-ms:60000}")
+    public void scheduledSync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sync();
+        } catch (SdkException | UncheckedIOException | IllegalStateException e) {
+            log.warn("Failed to sync ticket mirror from S3: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Brings the mirror up to date with the bucket and returns the number of objects downloaded.
+     */
+    public int sync() {
+        if (!enabled) {
+            throw new IllegalStateException("Ticket mirror is disabled");
+        }
+        syncLock.lock();
+        try {
+            log.debug("Syncing ticket mirror from S3");
+            Instant started = Instant.now();
+            Set<Long> listed = new HashSet<>();
+            int downloaded = 0;
+            String continuationToken = null;
+            do {
+                ListObjectsV2Response listing = amazonS3.listObjectsV2(ListObjectsV2Request.builder()
+                        .bucket(BUCKET_NAME)
+                        .prefix(TICKET_PREFIX)
+                        .continuationToken(continuationToken)
+                        .build());
+                List<S3Object> changed = new ArrayList<>();
+                for (S3Object object : listing.contents()) {
+                    Long id = ticketId(object.key());
+                    if (id == null) {
+                        continue;
+                    }
+                    listed.add(id);
+                    Entry entry = file.index.get(id);
+                    if (entry == null || !entry.eTag().equals(object.eTag())) {
+                        changed.add(object);
+                    }
+                }
+                downloaded += download(changed);
+                continuationToken = Boolean.TRUE.equals(listing.isTruncated()) ? listing.nextContinuationToken() : null;
+            } while (continuationToken != null);
+
+            file.index.keySet().retainAll(listed);
+            file.buffer.force();
+            syncedAt = started;
+            writeIndex(file);
+            log.info("Ticket mirror synced: {} objects downloaded, {} mirrored", downloaded, file.index.size());
+            return downloaded;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private int download(List<S3Object> objects) {
+        List<CompletableFuture<byte[]>> bodies = new ArrayList<>(objects.size());
+        for (S3Object object : objects) {
+            bodies.add(CompletableFuture.supplyAsync(() -> fetch(object.key()), downloadExecutor));
+        }
+        int downloaded = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            byte[] body = bodies.get(i).join();
+            if (body != null) {
+                append(ticketId(objects.get(i).key()), objects.get(i).eTag(), body);
+                downloaded++;
+            }
+        }
+        return downloaded;
+    }
+
+    private byte[] fetch(String key) {
+        try {
+            return amazonS3.getObjectAsBytes(GetObjectRequest.builder()
+                            .bucket(BUCKET_NAME)
+                            .key(key)
+                            .build())
+                    .asByteArray();
+        } catch (NoSuchKeyException e) {
+            // deleted after it was listed
+            return null;
+        }
+    }
+
+    private void append(Long id, String eTag, byte[] body) {
+        if (file.position + body.length > capacity) {
+            compact();
+            if (file.position + body.length > capacity) {
+                throw new IllegalStateException("Ticket mirror is full, raise tickets.s3.mirror.max-size");
+            }
+        }
+        MappedFile current = file;
+        current.buffer.put(current.position, body);
+        current.index.put(id, new Entry(current.position, body.length, eTag));
+        current.position += body.length;
+    }
+
+    // Copies the live records into a new data file so the space of superseded bodies is reclaimed.
+    private void compact() {
+        MappedFile current = file;
+        MappedFile next = map(current.generation + 1);
+        for (Map.Entry<Long, Entry> entry : current.index.entrySet()) {
+            Entry old = entry.getValue();
+            next.buffer.put(next.position, current.buffer, old.offset(), old.length());
+            next.index.put(entry.getKey(), new Entry(next.position, old.length(), old.eTag()));
+            next.position += old.length();
+        }
+        next.buffer.force();
+        // the old data file stays live until the index names the new generation
+        writeIndex(next);
+        file = next;
+        deleteDataFilesExcept(next.generation);
+        log.info("Compacted ticket mirror from {} to {} bytes", current.position, next.position);
+    }
+
+    private Ticket parse(MappedFile current, Entry entry) {
+        // reads straight from the mapped pages, the body is never copied onto the heap first
+        try (InputStream in = new ByteBufferBackedInputStream(current.buffer.slice(entry.offset(), entry.length()))) {
+            return objectMapper.readValue(in, Ticket.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read mirrored ticket", e);
+        }
+    }
+
+    private MappedFile open() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create ticket mirror directory " + directory, e);
+        }
+        long generation = 0;
+        Instant lastSync = null;
+        Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        Path index = directory.resolve(INDEX_FILE);
+        if (Files.exists(index)) {
+            try {
+                List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+                if (lines.isEmpty() || !lines.get(0).startsWith(GENERATION_HEADER)) {
+                    throw new IllegalStateException("index does not name a data file generation");
+                }
+                generation = Long.parseLong(lines.get(0).substring(GENERATION_HEADER.length()));
+                int first = 1;
+                if (lines.size() > 1 && lines.get(1).startsWith(SYNCED_AT_HEADER)) {
+                    lastSync = Instant.ofEpochMilli(Long.parseLong(lines.get(1).substring(SYNCED_AT_HEADER.length())));
+                    first = 2;
+                }
+                for (String line : lines.subList(first, lines.size())) {
+                    String[] fields = line.split(" ", 4);
+                    Entry entry = new Entry(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), fields[3]);
+                    if (entry.offset() + entry.length() <= capacity) {
+                        entries.put(Long.parseLong(fields[0]), entry);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // an unreadable index only costs a full download on the next sync
+                log.warn("Discarding unreadable ticket mirror index: {}", e.getMessage());
+                generation = 0;
+                lastSync = null;
+                entries.clear();
+            }
+        }
+        // a compaction that crashed before switching the index leaves a newer data file behind
+        deleteDataFilesExcept(generation);
+        MappedFile opened = map(generation);
+        opened.index.putAll(entries);
+        for (Entry entry : entries.values()) {
+            opened.position = Math.max(opened.position, entry.offset() + entry.length());
+        }
+        syncedAt = lastSync;
+        log.info("Opened ticket mirror at {} with {} tickets", directory, opened.index.size());
+        return opened;
+    }
+
+    private MappedFile map(long generation) {
+        Path path = dataFile(generation);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            return new MappedFile(generation, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map ticket mirror file " + path, e);
+        }
+    }
+
+    private void writeIndex(MappedFile current) {
+        Path index = directory.resolve(INDEX_FILE);
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(GENERATION_HEADER + current.generation);
+            writer.newLine();
+            // a compaction during a sync writes the previous sync time, which only makes the check stricter
+            Instant lastSync = syncedAt;
+            if (lastSync != null) {
+                writer.write(SYNCED_AT_HEADER + lastSync.toEpochMilli());
+                writer.newLine();
+            }
+            for (Map.Entry<Long, Entry> entry : current.index.entrySet()) {
+                Entry value = entry.getValue();
+                writer.write(entry.getKey() + " " + value.offset() + " " + value.length() + " " + value.eTag());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write ticket mirror index", e);
+        }
+        try {
+            Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replace ticket mirror index", e);
+        }
+    }
+
+    private Path dataFile(long generation) {
+        return directory.resolve(DATA_FILE_PREFIX + generation + DATA_FILE_SUFFIX);
+    }
+
+    // Removes data files of other generations; readers still holding their mappings are unaffected.
+    private void deleteDataFilesExcept(long generation) {
+        Path live = dataFile(generation);
+        try (DirectoryStream<Path> dataFiles = Files.newDirectoryStream(directory,
+                DATA_FILE_PREFIX + "*" + DATA_FILE_SUFFIX)) {
+            for (Path dataFile : dataFiles) {
+                if (!dataFile.equals(live)) {
+                    Files.deleteIfExists(dataFile);
+                }
+            }
+        } catch (IOException e) {
+            // left for the next compaction or restart to remove
+            log.warn("Failed to delete stale ticket mirror data files: {}", e.getMessage());
+        }
+    }
+
+    private LocalDateTime changesSince() {
+        Instant lastSync = syncedAt;
+        if (lastSync == null) {
+            throw new IllegalStateException("Ticket mirror has not been synced");
+        }
+        return LocalDateTime.ofInstant(lastSync.minus(CLOCK_SKEW_GRACE), ZoneId.systemDefault());
+    }
+
+    private static Long ticketId(String key) {
+        if (!key.startsWith(TICKET_PREFIX) || !key.endsWith(JSON_EXTENSION)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(key.substring(TICKET_PREFIX.length(), key.length() - JSON_EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (downloadExecutor != null) {
+            downloadExecutor.shutdownNow();
+        }
+    }
+
+    private record Entry(int offset, int length, String eTag) {
+    }
+
+    private static final class MappedFile {
+        private final long generation;
+        private final MappedByteBuffer buffer;
+        private final Map<Long, Entry> index = new ConcurrentHashMap<>();
+        // only advanced by the syncing thread
+        private int position;
+
+        private MappedFile(long generation, MappedByteBuffer buffer) {
+            this.generation = generation;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.ticketing.tickets.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded write-behind queue for S3 object writes. Callers only enqueue; a pool of worker
+ * threads performs the puts and deletes, retrying failures with exponential backoff.
+ * <p>
+ * Pending writes are kept per object key, so several writes to the same key that arrive before
+ * a worker picks it up collapse into one request carrying the latest body. Keys are partitioned
+ * over the workers by hash, which keeps writes to one key in order. When a partition is full,
+ * enqueueing blocks until there is room again.
+ * <p>
+ * Each enqueue returns a future that completes once the write, or a newer write to the same key
+ * that superseded it, has been applied; it fails if the write is given up on, or is still pending
+ * when shutdown times out. Writes enqueued after shutdown has begun are sent by the caller.
+ */
+@Component
+@Log4j2
+public class S3WriteBehindQueue {
+
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final long BASE_BACKOFF_MS = 200;
+    private static final long MAX_BACKOFF_MS = 10_000;
+
+    private final S3Client amazonS3;
+    private final ConcurrentHashMap<String, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<String>[] partitions;
+    private final Thread[] workers;
+    private final int maxAttempts;
+    private final Duration shutdownTimeout;
+    private final Counter failedWrites;
+    // enqueues hand ids to the workers under the read lock, so none lands after the workers stopped
+    private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    public S3WriteBehindQueue(S3Client amazonS3, MeterRegistry meterRegistry,
+                              @Value("${tickets.s3.write-behind.workers:4}") int workerCount,
+                              @Value("${tickets.s3.write-behind.capacity:10000}") int capacity,
+                              @Value("${tickets.s3.write-behind.max-attempts:5}") int maxAttempts,
+                              @Value("${tickets.s3.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.amazonS3 = amazonS3;
+        this.maxAttempts = maxAttempts;
+        this.shutdownTimeout = shutdownTimeout;
+        this.partitions = new BlockingQueue[workerCount];
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<String> partition = new LinkedBlockingQueue<>(Math.max(1, capacity / workerCount));
+            partitions[i] = partition;
+            workers[i] = new Thread(() -> work(partition), "s3-write-behind-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        Gauge.builder("tickets.s3.write_behind.depth", this, S3WriteBehindQueue::queueDepth)
+                .description("Object writes waiting to be sent to S3")
+                .register(meterRegistry);
+        Gauge.builder("tickets.s3.write_behind.lag", this, queue -> queue.lag().toMillis())
+                .description("Age of the oldest write waiting to be sent to S3")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.failedWrites = Counter.builder("tickets.s3.write_behind.failed")
+                .description("Writes dropped after exhausting their retries")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<Void> enqueuePut(String bucket, String key, byte[] body) {
+        return enqueue(bucket, key, body);
+    }
+
+    public CompletableFuture<Void> enqueueDelete(String bucket, String key) {
+        return enqueue(bucket, key, null);
+    }
+
+    public int queueDepth() {
+        return pending.size();
+    }
+
+    public Duration lag() {
+        long now = System.nanoTime();
+        long oldest = now;
+        for (PendingWrite write : pending.values()) {
+            oldest = Math.min(oldest, write.enqueuedAt());
+        }
+        return Duration.ofNanos(now - oldest);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        log.info("Draining {} pending S3 writes", queueDepth());
+        runningLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            runningLock.writeLock().unlock();
+        }
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        if (queueDepth() > 0) {
+            log.error("Shutdown timed out with {} S3 writes still pending", queueDepth());
+            IllegalStateException abandoned = new IllegalStateException("S3 write-behind queue shut down before the write was sent");
+            for (String id : pending.keySet()) {
+                PendingWrite write = pending.remove(id);
+                if (write != null) {
+                    write.waiters().forEach(waiter -> waiter.completeExceptionally(abandoned));
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(String bucket, String key, byte[] body) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        PendingWrite write = new PendingWrite(bucket, key, body, System.nanoTime(), List.of(done));
+        String id = bucket + "/" + key;
+        AtomicBoolean scheduled = new AtomicBoolean(true);
+        // a key already waiting only gets its body replaced; its original enqueue time is kept for lag
+        pending.compute(id, (ignored, older) -> {
+            if (older == null) {
+                scheduled.set(false);
+                return write;
+            }
+            return write.supersede(older);
+        });
+        if (scheduled.get()) {
+            return done;
+        }
+        runningLock.readLock().lock();
+        try {
+            if (running) {
+                // a full partition blocks here, which holds off shutdown until the workers made room
+                partitionOf(id).put(id);
+                return done;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runningLock.readLock().unlock();
+        }
+        flush(id);
+        return done;
+    }
+
+    private BlockingQueue<String> partitionOf(String id) {
+        return partitions[Math.floorMod(id.hashCode(), partitions.length)];
+    }
+
+    private void work(BlockingQueue<String> partition) {
+        while (running || !partition.isEmpty()) {
+            try {
+                String id = partition.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (id != null) {
+                    flush(id);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(String id) {
+        PendingWrite write = pending.remove(id);
+        if (write == null) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                apply(write);
+                write.waiters().forEach(waiter -> waiter.complete(null));
+                return;
+            } catch (SdkException e) {
+                if (attempt >= maxAttempts) {
+                    failedWrites.increment();
+                    log.error("Giving up on S3 write for key {} after {} attempts: {}", write.key(), attempt, e.getMessage());
+                    write.waiters().forEach(waiter -> waiter.completeExceptionally(e));
+                    return;
+                }
+                // a newer write for the same key is queued: it supersedes this one and takes over its waiters
+                if (pending.computeIfPresent(id, (ignored, newer) -> newer.supersede(write)) != null) {
+                    return;
+                }
+                log.warn("S3 write for key {} failed (attempt {}), retrying: {}", write.key(), attempt, e.getMessage());
+                if (!sleep(backoff(attempt))) {
+                    write.waiters().forEach(waiter -> waiter.completeExceptionally(e));
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(PendingWrite write) {
+        if (write.body() == null) {
+            amazonS3.deleteObject(DeleteObjectRequest.builder()
+                    .bucket(write.bucket())
+                    .key(write.key())
+                    .build());
+            log.debug("Object deleted from S3 with key: {}", write.key());
+        } else {
+            amazonS3.putObject(PutObjectRequest.builder()
+                            .bucket(write.bucket())
+                            .key(write.key())
+                            .build(),
+                    RequestBody.fromBytes(write.body()));
+            log.debug("Object saved to S3 with key: {}", write.key());
+        }
+    }
+
+    private static long backoff(int attempt) {
+        long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 1, 16));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record PendingWrite(String bucket, String key, byte[] body, long enqueuedAt,
+                                List<CompletableFuture<Void>> waiters) {
+        PendingWrite supersede(PendingWrite older) {
+            List<CompletableFuture<Void>> merged = new ArrayList<>(older.waiters);
+            merged.addAll(waiters);
+            return new PendingWrite(bucket, key, body, Math.min(enqueuedAt, older.enqueuedAt), merged);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ticketing.tickets.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Index of one segment snapshot. Segments are listed in id order and each one is split into
+ * independently gzipped blocks, so a single ticket can be read with one ranged GET of its block.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SegmentManifest {
+    private long generation;
+    // epoch millis at which the tickets were read; outbox rows from then on are newer than the snapshot
+    private long takenAt;
+    private long ticketCount;
+    private List<Segment> segments;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Segment {
+        private String key;
+        private long firstId;
+        private long lastId;
+        private long bytes;
+        private List<Block> blocks;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Block {
+        private long firstId;
+        private long lastId;
+        private long offset;
+        private long length;
+    }
+}
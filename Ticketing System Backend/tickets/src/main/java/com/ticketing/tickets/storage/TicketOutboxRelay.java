@@ -0,0 +1,119 @@
+package com.ticketing.tickets.storage;
+
+import com.ticketing.tickets.entity.OutboxOperation;
+import com.ticketing.tickets.entity.TicketOutbox;
+import com.ticketing.tickets.repository.TicketOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ships pending {@link TicketOutbox} rows to S3 in id order. Each batch is handed to the
+ * {@link S3WriteBehindQueue}, which coalesces writes to the same object, and the rows S3 accepted
+ * are marked processed in a single update before the next batch is read. A crash at any point
+ * only means some rows are shipped again, and S3 puts and deletes are idempotent.
+ */
+@Component
+@Log4j2
+public class TicketOutboxRelay {
+
+    private final TicketOutboxRepository outboxRepository;
+    private final S3WriteBehindQueue s3WriteBehindQueue;
+    private final S3TicketCache ticketCache;
+    private final int batchSize;
+    private final Duration shipTimeout;
+    private final Duration retention;
+    private final boolean enabled;
+
+    public TicketOutboxRelay(TicketOutboxRepository outboxRepository, S3WriteBehindQueue s3WriteBehindQueue,
+                             S3TicketCache ticketCache, MeterRegistry meterRegistry,
+                             @Value("${tickets.outbox.batch-size:500}") int batchSize,
+                             @Value("${tickets.outbox.ship-timeout:30s}") Duration shipTimeout,
+                             @Value("${tickets.outbox.retention:1h}") Duration retention,
+                             @Value("${tickets.outbox.relay.enabled:true}") boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.s3WriteBehindQueue = s3WriteBehindQueue;
+        this.ticketCache = ticketCache;
+        this.batchSize = batchSize;
+        this.shipTimeout = shipTimeout;
+        this.retention = retention;
+        this.enabled = enabled;
+        Gauge.builder("tickets.outbox.pending", outboxRepository, TicketOutboxRepository::countByProcessedAtIsNull)
+                .description("Ticket changes not yet replicated to S3")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.outbox.poll-interval-ms:500}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        List<TicketOutbox> batch;
+        do {
+            batch = outboxRepository.findByProcessedAtIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+        } while (ship(batch) == batch.size() && batch.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.outbox.purge-interval-ms:60000}")
+    public void purge() {
+        int purged = outboxRepository.deleteProcessedBefore(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.debug("Purged {} processed outbox rows", purged);
+        }
+    }
+
+    int ship(List<TicketOutbox> batch) {
+        log.debug("Shipping {} outbox rows to S3", batch.size());
+        Map<Long, CompletableFuture<Void>> shipments = new LinkedHashMap<>();
+        Map<Long, Long> ticketIds = new HashMap<>();
+        for (TicketOutbox row : batch) {
+            ticketIds.put(row.getId(), row.getTicketId());
+            shipments.put(row.getId(), row.getOperation() == OutboxOperation.DELETE
+                    ? s3WriteBehindQueue.enqueueDelete(row.getBucket(), row.getObjectKey())
+                    : s3WriteBehindQueue.enqueuePut(row.getBucket(), row.getObjectKey(),
+                    row.getPayload().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        long deadline = System.nanoTime() + shipTimeout.toNanos();
+        List<Long> shipped = new ArrayList<>(batch.size());
+        for (Map.Entry<Long, CompletableFuture<Void>> shipment : shipments.entrySet()) {
+            try {
+                shipment.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                shipped.add(shipment.getKey());
+                // a read that raced with the write may have cached the previous version
+                ticketCache.invalidate(ticketIds.get(shipment.getKey()));
+            } catch (ExecutionException | TimeoutException e) {
+                // left pending, the next run ships it again
+                log.warn("Outbox row {} not replicated yet: {}", shipment.getKey(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!shipped.isEmpty()) {
+            outboxRepository.markProcessed(shipped, LocalDateTime.now());
+        }
+        log.debug("Replicated {} of {} outbox rows", shipped.size(), batch.size());
+        return shipped.size();
+    }
+}
@@ -0,0 +1,387 @@
+package com.ticketing.tickets.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.repository.TicketOutboxRepository;
+import com.ticketing.tickets.repository.TicketRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Packed S3 layout for ticket snapshots. Tickets are written in id order as NDJSON into segment
+ * objects of bounded size; each segment is a run of independently gzipped blocks, and a small
+ * manifest records the id range and byte range of every block. A full read fetches a handful of
+ * segments instead of one object per ticket, and a single ticket costs one ranged GET.
+ * <p>
+ * A snapshot is written under a new generation prefix and becomes visible when the manifest is
+ * replaced, after which the previous generation's segments are deleted.
+ * <p>
+ * Snapshots lag behind the per-object layout, so they only answer for tickets without outbox rows
+ * since the snapshot was taken; callers read changed tickets from their per-object keys. Once a
+ * snapshot is older than the outbox retention those rows may be purged, and the store reports
+ * itself inactive until the next snapshot.
+ */
+@Component
+@Log4j2
+public class TicketSegmentStore {
+
+    private static final String BUCKET_NAME = "my-op-bucket";
+    private static final String SEGMENT_PREFIX = "ticket-segments/";
+    private static final String MANIFEST_KEY = SEGMENT_PREFIX + "manifest.json";
+    private static final int CLEAR_INTERVAL = 500;
+    // transactions still open while the snapshot is read may commit outbox rows stamped before it
+    private static final Duration IN_FLIGHT_GRACE = Duration.ofMinutes(1);
+
+    private final S3Client amazonS3;
+    private final TicketRepository ticketRepository;
+    private final TicketOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TicketStorageLayout layout;
+    private final long maxSegmentBytes;
+    private final int ticketsPerBlock;
+    private final Duration manifestTtl;
+    private final Duration outboxRetention;
+    private volatile CachedManifest cachedManifest;
+
+    public TicketSegmentStore(S3Client amazonS3, TicketRepository ticketRepository,
+                              TicketOutboxRepository outboxRepository, ObjectMapper objectMapper,
+                              EntityManager entityManager,
+                              @Value("${tickets.s3.layout:objects}") TicketStorageLayout layout,
+                              @Value("${tickets.s3.segments.max-segment-size:8MB}") DataSize maxSegmentSize,
+                              @Value("${tickets.s3.segments.tickets-per-block:128}") int ticketsPerBlock,
+                              @Value("${tickets.s3.segments.manifest-ttl:10s}") Duration manifestTtl,
+                              @Value("${tickets.outbox.retention:1h}") Duration outboxRetention) {
+        this.amazonS3 = amazonS3;
+        this.ticketRepository = ticketRepository;
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.layout = layout;
+        this.maxSegmentBytes = maxSegmentSize.toBytes();
+        this.ticketsPerBlock = ticketsPerBlock;
+        this.manifestTtl = manifestTtl;
+        this.outboxRetention = outboxRetention;
+    }
+
+    /**
+     * True when reads should be served from segments: the segment layout is configured and a
+     * snapshot has been written within the outbox retention. Otherwise the per-object layout is used.
+     */
+    public boolean isActive() {
+        return layout == TicketStorageLayout.SEGMENTS
+                && currentManifest().filter(manifest -> !changesSince(manifest).isBefore(
+                        LocalDateTime.now().minus(outboxRetention))).isPresent();
+    }
+
+    /**
+     * Ids of tickets created, updated or deleted since the current snapshot was taken. The snapshot
+     * holds stale contents, or nothing, for these.
+     */
+    public Set<Long> changedSinceSnapshot() {
+        return withManifest(manifest -> outboxRepository.findTicketIdsChangedSince(changesSince(manifest)));
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.s3.segments.snapshot-interval-ms:300000}",
+            initialDelayString = "${tickets.s3.segments.snapshot-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void scheduledSnapshot() {
+        if (layout != TicketStorageLayout.SEGMENTS) {
+            return;
+        }
+        try {
+            writeSnapshot();
+        } catch (SdkException e) {
+            log.warn("Failed to write ticket segment snapshot, keeping the previous one: {}", e.getMessage());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public SegmentManifest writeSnapshot() {
+        Optional<SegmentManifest> previous = currentManifest();
+        long takenAt = System.currentTimeMillis();
+        long generation = Math.max(takenAt, previous.map(manifest -> manifest.getGeneration() + 1).orElse(0L));
+        log.debug("Writing ticket segment snapshot generation {}", generation);
+
+        SegmentWriter writer = new SegmentWriter(generation, takenAt);
+        try (Stream<Ticket> tickets = ticketRepository.streamAllOrderById()) {
+            Iterator<Ticket> iterator = tickets.iterator();
+            long count = 0;
+            while (iterator.hasNext()) {
+                writer.add(iterator.next());
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        SegmentManifest manifest = writer.finish();
+        put(MANIFEST_KEY, writeJson(manifest), "application/json");
+        cachedManifest = new CachedManifest(manifest, System.nanoTime());
+        previous.ifPresent(this::deleteSegments);
+        log.info("Wrote {} tickets into {} segments", manifest.getTicketCount(), manifest.getSegments().size());
+        return manifest;
+    }
+
+    public List<Ticket> readAll() {
+        return withManifest(manifest -> {
+            List<Ticket> tickets = new ArrayList<>((int) Math.min(manifest.getTicketCount(), Integer.MAX_VALUE));
+            for (SegmentManifest.Segment segment : manifest.getSegments()) {
+                byte[] packed = amazonS3.getObjectAsBytes(GetObjectRequest.builder()
+                                .bucket(BUCKET_NAME)
+                                .key(segment.getKey())
+                                .build())
+                        .asByteArray();
+                // GZIPInputStream reads concatenated members, so a whole segment unpacks in one pass
+                readTickets(packed, tickets::add);
+            }
+            return tickets;
+        });
+    }
+
+    /**
+     * The ticket as of the current snapshot, or empty when the snapshot does not hold it or it has
+     * changed since; the per-object key is current in both cases.
+     */
+    public Optional<Ticket> read(long id) {
+        return withManifest(manifest -> {
+            if (outboxRepository.existsByTicketIdAndCreatedAtGreaterThanEqual(id, changesSince(manifest))) {
+                return Optional.empty();
+            }
+            SegmentManifest.Segment segment = find(manifest.getSegments(), id, SegmentManifest.Segment::getLastId);
+            if (segment == null || segment.getFirstId() > id) {
+                return Optional.empty();
+            }
+            SegmentManifest.Block block = find(segment.getBlocks(), id, SegmentManifest.Block::getLastId);
+            if (block == null || block.getFirstId() > id) {
+                return Optional.empty();
+            }
+            byte[] packed = amazonS3.getObjectAsBytes(GetObjectRequest.builder()
+                            .bucket(BUCKET_NAME)
+                            .key(segment.getKey())
+                            .range("bytes=" + block.getOffset() + "-" + (block.getOffset() + block.getLength() - 1))
+                            .build())
+                    .asByteArray();
+            List<Ticket> match = new ArrayList<>(1);
+            readTickets(packed, ticket -> {
+                if (ticket.getId() == id) {
+                    match.add(ticket);
+                }
+            });
+            return match.stream().findFirst();
+        });
+    }
+
+    private <T> T withManifest(Function<SegmentManifest, T> reader) {
+        SegmentManifest manifest = currentManifest()
+                .orElseThrow(() -> new IllegalStateException("No ticket segment snapshot has been written"));
+        try {
+            return reader.apply(manifest);
+        } catch (NoSuchKeyException e) {
+            // a newer snapshot replaced the segments this cached manifest points at
+            cachedManifest = null;
+            return reader.apply(currentManifest().orElseThrow(() -> e));
+        }
+    }
+
+    private Optional<SegmentManifest> currentManifest() {
+        CachedManifest cached = cachedManifest;
+        if (cached != null && System.nanoTime() - cached.loadedAt() < manifestTtl.toNanos()) {
+            return Optional.ofNullable(cached.manifest());
+        }
+        SegmentManifest manifest;
+        try {
+            byte[] json = amazonS3.getObjectAsBytes(GetObjectRequest.builder()
+                            .bucket(BUCKET_NAME)
+                            .key(MANIFEST_KEY)
+                            .build())
+                    .asByteArray();
+            manifest = objectMapper.readValue(json, SegmentManifest.class);
+        } catch (NoSuchKeyException e) {
+            manifest = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read ticket segment manifest", e);
+        }
+        cachedManifest = new CachedManifest(manifest, System.nanoTime());
+        return Optional.ofNullable(manifest);
+    }
+
+    private static LocalDateTime changesSince(SegmentManifest manifest) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(manifest.getTakenAt()), ZoneId.systemDefault())
+                .minus(IN_FLIGHT_GRACE);
+    }
+
+    // First entry whose last id is at or after the given id; entries are sorted by id.
+    private static <T> T find(List<T> entries, long id, ToLongFunction<T> lastId) {
+        int low = 0;
+        int high = entries.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lastId.applyAsLong(entries.get(mid)) < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < entries.size() && lastId.applyAsLong(entries.get(low)) >= id ? entries.get(low) : null;
+    }
+
+    private void readTickets(byte[] packed, Consumer<Ticket> consumer) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(packed)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    consumer.accept(objectMapper.readValue(line, Ticket.class));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to unpack ticket segment", e);
+        }
+    }
+
+    private void deleteSegments(SegmentManifest manifest) {
+        for (SegmentManifest.Segment segment : manifest.getSegments()) {
+            try {
+                amazonS3.deleteObject(DeleteObjectRequest.builder()
+                        .bucket(BUCKET_NAME)
+                        .key(segment.getKey())
+                        .build());
+            } catch (SdkException e) {
+                log.warn("Failed to delete old ticket segment {}: {}", segment.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void put(String key, byte[] body, String contentType) {
+        amazonS3.putObject(PutObjectRequest.builder()
+                        .bucket(BUCKET_NAME)
+                        .key(key)
+                        .contentType(contentType)
+                        .build(),
+                RequestBody.fromBytes(body));
+    }
+
+    private byte[] writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            // in-memory streams do not fail
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private record CachedManifest(SegmentManifest manifest, long loadedAt) {
+    }
+
+    /**
+     * Packs tickets into blocks of {@code ticketsPerBlock} and blocks into segments, uploading a
+     * segment once its compressed size reaches {@code maxSegmentBytes}.
+     */
+    private final class SegmentWriter {
+        private final long generation;
+        private final long takenAt;
+        private final List<SegmentManifest.Segment> segments = new ArrayList<>();
+        private final ByteArrayOutputStream segment = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        private List<SegmentManifest.Block> blocks = new ArrayList<>();
+        private long blockFirstId;
+        private long blockLastId;
+        private int blockCount;
+        private long ticketCount;
+
+        SegmentWriter(long generation, long takenAt) {
+            this.generation = generation;
+            this.takenAt = takenAt;
+        }
+
+        void add(Ticket ticket) {
+            if (blockCount == 0) {
+                blockFirstId = ticket.getId();
+            }
+            blockLastId = ticket.getId();
+            block.writeBytes(writeJson(ticket));
+            block.write('\n');
+            blockCount++;
+            ticketCount++;
+            if (blockCount == ticketsPerBlock) {
+                closeBlock();
+                if (segment.size() >= maxSegmentBytes) {
+                    closeSegment();
+                }
+            }
+        }
+
+        SegmentManifest finish() {
+            if (blockCount > 0) {
+                closeBlock();
+            }
+            closeSegment();
+            return new SegmentManifest(generation, takenAt, ticketCount, segments);
+        }
+
+        private void closeBlock() {
+            byte[] packed = gzip(block.toByteArray());
+            blocks.add(new SegmentManifest.Block(blockFirstId, blockLastId, segment.size(), packed.length));
+            segment.writeBytes(packed);
+            block.reset();
+            blockCount = 0;
+        }
+
+        private void closeSegment() {
+            if (blocks.isEmpty()) {
+                return;
+            }
+            String key = SEGMENT_PREFIX + generation + "/segment-" + String.format("%05d", segments.size()) + ".ndjson.gz";
+            put(key, segment.toByteArray(), "application/gzip");
+            segments.add(new SegmentManifest.Segment(key, blocks.get(0).getFirstId(),
+                    blocks.get(blocks.size() - 1).getLastId(), segment.size(), blocks));
+            segment.reset();
+            blocks = new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.ticketing.tickets.storage;
+
+/**
+ * How ticket snapshots are laid out in S3.
+ */
+public enum TicketStorageLayout {
+    /** One {@code tickets/Ticket_<id>.json} object per ticket. */
+    OBJECTS,
+    /** Tickets packed into compressed segments described by a manifest. */
+    SEGMENTS
+}
@@ -0,0 +1,63 @@
+package com.ticketing.tickets.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * Answers GET requests carrying {@code If-None-Match}. The body is only produced when the client's
+ * copy is out of date; otherwise the answer is an empty 304, so an unchanged resource is neither
+ * queried nor serialized again.
+ * <p>
+ * Responses are sent with {@code Cache-Control: no-cache}: browsers keep them, but revalidate
+ * before every reuse, which costs a 304 as long as nothing changed.
+ */
+public final class ConditionalGet {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * A strong entity tag made of the given parts, e.g. {@code "ticket-42-3"}.
+     */
+    public static String etag(Object... parts) {
+        StringJoiner tag = new StringJoiner("-", "\"", "\"");
+        for (Object part : parts) {
+            tag.add(String.valueOf(part));
+        }
+        return tag.toString();
+    }
+
+    public static <T> ResponseEntity<T> respond(String ifNoneMatch, String etag, CacheControl cacheControl,
+                                                Supplier<T> body) {
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(body.get());
+    }
+
+    // If-None-Match uses the weak comparison, so a W/ prefix on the client's tag is ignored
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith(WEAK_PREFIX)) {
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
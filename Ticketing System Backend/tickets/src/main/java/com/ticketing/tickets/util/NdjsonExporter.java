@@ -0,0 +1,44 @@
+package com.ticketing.tickets.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a repository {@link Stream} as newline-delimited JSON, one entity per line.
+ * Rows are serialized and written as they are read, and the persistence context is cleared
+ * every {@link #CLEAR_INTERVAL} rows, so memory stays flat no matter how many rows are exported.
+ */
+@Component
+public class NdjsonExporter {
+
+    public static final int CLEAR_INTERVAL = 500;
+
+    private final ObjectWriter writer;
+    private final EntityManager entityManager;
+
+    public NdjsonExporter(ObjectMapper objectMapper, EntityManager entityManager) {
+        this.writer = objectMapper.writer();
+        this.entityManager = entityManager;
+    }
+
+    public <T> long export(Stream<T> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            out.write(writer.writeValueAsBytes(iterator.next()));
+            out.write('\n');
+            if (++count % CLEAR_INTERVAL == 0) {
+                entityManager.clear();
+            }
+        }
+        out.flush();
+        return count;
+    }
+}
@@ -0,0 +1,55 @@
+package com.ticketing.tickets.util;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts writes per entity type, so a listing can tell whether its table changed without reading
+ * it. The version of a set of tables is the start time of this instance plus their counts, and it
+ * is different after every insert, update or delete made through JPA.
+ * <p>
+ * A count is bumped when the write is flushed and again once its transaction has completed: a
+ * version handed out while the transaction was still open, next to the old rows, is never handed
+ * out again with the new ones. Writes made through another instance, or outside JPA, are not
+ * counted; like the seat inventory, this assumes a single instance owns the tables.
+ */
+@Component
+public class TableChangeCounter {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final ConcurrentHashMap<Class<?>, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public void changed(Class<?> entityType) {
+        AtomicLong counter = counter(entityType);
+        counter.incrementAndGet();
+        // the counter itself marks that this transaction already bumps it on completion
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(counter)) {
+            TransactionSynchronizationManager.bindResource(counter, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(counter);
+                    counter.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    public String version(Class<?>... entityTypes) {
+        StringJoiner version = new StringJoiner("-").add(epoch);
+        for (Class<?> entityType : entityTypes) {
+            version.add(Long.toString(counter(entityType).get()));
+        }
+        return version.toString();
+    }
+
+    private AtomicLong counter(Class<?> entityType) {
+        return counters.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+}
@@ -0,0 +1,112 @@
+package com.ticketing.tickets.benchmark;
+
+import com.ticketing.tickets.TicketsApplication;
+import com.ticketing.tickets.support.EventsApiStub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the platform thread pool with virtual threads on an endpoint that blocks on the
+ * external events API. The stub API answers after a fixed delay, and more clients are in flight
+ * than Tomcat has platform threads. With platform threads the requests queue behind the pool.
+ * With virtual threads they all wait on the API at the same time.
+ * <p>
+ * Opt-in, as it starts the application twice and takes several seconds:
+ * {@code mvn -Pvirtual-threads test -Dtest=ThreadingModeBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class ThreadingModeBenchmarkTest {
+
+    private static final int CONCURRENT_CLIENTS = 800;
+    private static final int REQUESTS_PER_CLIENT = 5;
+    private static final Duration API_LATENCY = Duration.ofMillis(50);
+
+    private EventsApiStub eventsApi;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        eventsApi = new EventsApiStub();
+        eventsApi.respondSlowly(API_LATENCY, "{\"id\":\"1\",\"name\":\"Concert\",\"location\":\"Arena\"}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventsApi.close();
+    }
+
+    @Test
+    void compareThreadingModes() throws Exception {
+        double platform = measure(false);
+        double virtual = measure(true);
+
+        System.out.printf("%n%-10s %12s%n", "threads", "requests/s");
+        System.out.printf("%-10s %12.0f%n", "platform", platform);
+        System.out.printf("%-10s %12.0f%n", "virtual", virtual);
+        System.out.printf("speed-up   %11.1fx%n%n", virtual / platform);
+    }
+
+    private double measure(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TicketsApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--logging.level.com.ticketing.tickets=WARN",
+                        "--spring.jpa.show-sql=false",
+                        "--tickets.events.api-url=" + eventsApi.url(),
+                        "--tickets.events.http.max-connections=" + CONCURRENT_CLIENTS,
+                        "--tickets.events.http.pool-timeout=5s",
+                        "--tickets.events.http.read-timeout=5s",
+                        "--tickets.events.bulkhead.max-concurrent-calls=" + CONCURRENT_CLIENTS,
+                        "--tickets.events.bulkhead.max-wait=5s")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            // updates always go to the API, so every request blocks for the full API latency
+            HttpRequest update = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/events/1"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"name\":\"Concert\",\"location\":\"Arena\"}"))
+                    .build();
+
+            run(client, update, CONCURRENT_CLIENTS);
+            long start = System.nanoTime();
+            int completed = run(client, update, CONCURRENT_CLIENTS * REQUESTS_PER_CLIENT);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            assertEquals(CONCURRENT_CLIENTS * REQUESTS_PER_CLIENT, completed);
+            return completed / seconds;
+        }
+    }
+
+    // Sends the requests with CONCURRENT_CLIENTS in flight at a time and returns how many got a 200.
+    private static int run(HttpClient client, HttpRequest request, int total) {
+        List<CompletableFuture<Integer>> clients = new ArrayList<>(CONCURRENT_CLIENTS);
+        int perClient = total / CONCURRENT_CLIENTS;
+        for (int i = 0; i < CONCURRENT_CLIENTS; i++) {
+            CompletableFuture<Integer> chain = CompletableFuture.completedFuture(0);
+            for (int n = 0; n < perClient; n++) {
+                chain = chain.thenCompose(ok -> client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .thenApply(response -> ok + (response.statusCode() == 200 ? 1 : 0)));
+            }
+            clients.add(chain);
+        }
+        return clients.stream().mapToInt(CompletableFuture::join).sum();
+    }
+}
@@ -0,0 +1,99 @@
+package com.ticketing.tickets.configuration;
+
+import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.repository.TicketRepository;
+import com.ticketing.tickets.service.TicketService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class HibernateCacheConfigTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private Ticket ticket;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        ticket = ticketService.saveTicket(new Ticket(null, "Cached Event", "C1", new BigDecimal("75.00"), null));
+        statistics.clear();
+    }
+
+    @Test
+    void testRepeatedLookupsDoNotReachTheDatabase() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("C1", ticketService.getTicketById(ticket.getId()).orElseThrow().getSeat());
+        }
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Ticket.CACHE_REGION);
+        assertEquals(3, region.getHitCount());
+        assertEquals(0, region.getMissCount());
+        assertEquals(1.0, meterRegistry.get("tickets.cache.hit.ratio").tag("region", Ticket.CACHE_REGION).gauge().value());
+    }
+
+    @Test
+    void testUpdateReplacesTheCachedTicket() {
+        ticketService.getTicketById(ticket.getId());
+
+        ticketService.updateTicket(ticket.getId(), new Ticket(null, "Cached Event", "C2", new BigDecimal("90.00"), null));
+        statistics.clear();
+
+        Ticket cached = ticketService.getTicketById(ticket.getId()).orElseThrow();
+        assertEquals("C2", cached.getSeat());
+        assertEquals(0, new BigDecimal("90.00").compareTo(cached.getPrice()));
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void testDeleteEvictsTheCachedTicket() {
+        ticketService.getTicketById(ticket.getId());
+
+        ticketService.deleteTicket(ticket.getId());
+        statistics.clear();
+
+        assertFalse(entityManagerFactory.getCache().contains(Ticket.class, ticket.getId()));
+        assertTrue(ticketService.getTicketById(ticket.getId()).isEmpty());
+        // the lookup went past the region to the database, and nothing was cached for the missing row
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Ticket.CACHE_REGION);
+        assertEquals(0, region.getHitCount());
+        assertEquals(1, region.getMissCount());
+        assertEquals(0, region.getPutCount());
+    }
+
+    @Test
+    void testPageQueryIsServedFromTheQueryCache() {
+        ticketService.getTicketsPage(null, 10);
+        ticketService.getTicketsPage(null, 10);
+
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        ticketRepository.save(new Ticket(null, "Cached Event", "C3", new BigDecimal("10.00"), null));
+        ticketService.getTicketsPage(null, 10);
+
+        // the insert invalidated the cached page
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+}
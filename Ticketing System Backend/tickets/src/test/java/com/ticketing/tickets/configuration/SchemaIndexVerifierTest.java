@@ -0,0 +1,31 @@
+package com.ticketing.tickets.configuration;
+
+import com.ticketing.tickets.configuration.SchemaIndexVerifier.RequiredIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SchemaIndexVerifierTest {
+
+    @Autowired
+    private SchemaIndexVerifier schemaIndexVerifier;
+
+    @Test
+    void testGeneratedSchemaHasTheBookingIndexes() {
+        assertEquals(List.of(), schemaIndexVerifier.findMissing(SchemaIndexVerifier.REQUIRED_INDEXES));
+        assertDoesNotThrow(schemaIndexVerifier::verify);
+    }
+
+    @Test
+    void testReportsMissingAndNonUniqueIndexes() {
+        RequiredIndex unindexed = new RequiredIndex("ticket", "seat", false);
+        RequiredIndex notUnique = new RequiredIndex("bookings", "user", true);
+
+        assertEquals(List.of(unindexed, notUnique), schemaIndexVerifier.findMissing(List.of(unindexed, notUnique)));
+    }
+}
@@ -1,19 +1,27 @@
 package com.ticketing.tickets.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.dto.CartCheckoutRequest;
 import com.ticketing.tickets.entity.Booking;
 import com.ticketing.tickets.entity.Ticket;
 import com.ticketing.tickets.repository.BookingRepository;
 import com.ticketing.tickets.repository.TicketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,6 +42,9 @@ class BookingControllerFunctionalTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Ticket testTicket;
     private Booking testBooking;
 
@@ -80,7 +91,76 @@ class BookingControllerFunctionalTest {
         mockMvc.perform(get("/api/bookings"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].user").value(testBooking.getUser()))
-                .andExpect(jsonPath("$[0].ticket.event").value(testTicket.getEvent()));
+                .andExpect(jsonPath("$[0].ticketId").value(testTicket.getId()))
+                .andExpect(jsonPath("$[0].event").value(testTicket.getEvent()))
+                .andExpect(jsonPath("$[0].ticket").doesNotExist());
+    }
+
+    @Test
+    void shouldRevalidateBookingListAgainstTableChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/bookings"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/bookings").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // the listing shows the ticket's price, so repricing the ticket changes it
+        testTicket.setPrice(BigDecimal.valueOf(120.00));
+        ticketRepository.save(testTicket);
+
+        mockMvc.perform(get("/api/bookings").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$[0].price").value(120.00));
+    }
+
+    @Test
+    void shouldPageThroughBookingsWithCursor() throws Exception {
+        Ticket secondTicket = new Ticket();
+        secondTicket.setEvent("Second Event");
+        secondTicket.setSeat("C3");
+        secondTicket.setPrice(BigDecimal.valueOf(80.00));
+        secondTicket = ticketRepository.save(secondTicket);
+
+        Booking secondBooking = new Booking();
+        secondBooking.setTicket(secondTicket);
+        secondBooking.setUser("secondUser");
+        bookingRepository.save(secondBooking);
+
+        String firstPage = mockMvc.perform(get("/api/bookings/page").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].user").value(testBooking.getUser()))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/bookings/page").param("size", "1").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].user").value("secondUser"))
+                .andExpect(jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/bookings/page").param("cursor", "###"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid cursor: ###"));
+    }
+
+    @Test
+    void shouldExportBookingsAsNdjson() throws Exception {
+        String body = mockMvc.perform(get("/api/bookings/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(1, lines.length);
+        assertEquals(testBooking.getUser(), objectMapper.readTree(lines[0]).get("user").asText());
+        assertEquals(testTicket.getEvent(), objectMapper.readTree(lines[0]).get("ticket").get("event").asText());
     }
 
     @Test
@@ -91,12 +171,68 @@ class BookingControllerFunctionalTest {
                 .andExpect(jsonPath("$.ticket.event").value(testTicket.getEvent()));
     }
 
+    @Test
+    void shouldTagBookingWithItsAndItsTicketsVersion() throws Exception {
+        String etag = "\"booking-" + testBooking.getId() + "-0-0\"";
+
+        mockMvc.perform(get("/api/bookings/{id}", testBooking.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        mockMvc.perform(get("/api/bookings/ticket/{ticketId}", testTicket.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        testTicket.setSeat("A2");
+        ticketRepository.save(testTicket);
+
+        mockMvc.perform(get("/api/bookings/{id}", testBooking.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"booking-" + testBooking.getId() + "-0-1\""))
+                .andExpect(jsonPath("$.ticket.seat").value("A2"));
+    }
+
     @Test
     void shouldGetBookingsByUser() throws Exception {
         mockMvc.perform(get("/api/bookings/user/{user}", testBooking.getUser()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].user").value(testBooking.getUser()))
-                .andExpect(jsonPath("$[0].ticket.event").value(testTicket.getEvent()));
+                .andExpect(jsonPath("$[0].ticketId").value(testTicket.getId()))
+                .andExpect(jsonPath("$[0].event").value(testTicket.getEvent()))
+                .andExpect(jsonPath("$[0].ticket").doesNotExist());
+    }
+
+    @Test
+    void shouldGetBookingByTicketId() throws Exception {
+        mockMvc.perform(get("/api/bookings/ticket/{ticketId}", testTicket.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(testBooking.getId()))
+                .andExpect(jsonPath("$.user").value(testBooking.getUser()));
+
+        mockMvc.perform(get("/api/bookings/ticket/{ticketId}", 999L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Booking not found for ticket id :: 999"));
+    }
+
+    @Test
+    void shouldGetBookingsBetweenDates() throws Exception {
+        Ticket ticket = saveTicket("Dated Event", "D1");
+        Booking booking = new Booking();
+        booking.setTicket(ticket);
+        booking.setUser("datedUser");
+        booking.setBookingDate(LocalDateTime.of(2024, 8, 15, 12, 0));
+        bookingRepository.save(booking);
+
+        mockMvc.perform(get("/api/bookings/date")
+                        .param("from", "2024-08-15T00:00:00")
+                        .param("to", "2024-08-16T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].user").value("datedUser"));
+
+        mockMvc.perform(get("/api/bookings/date")
+                        .param("from", "2024-08-16T00:00:00")
+                        .param("to", "2024-08-15T00:00:00"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -126,12 +262,115 @@ class BookingControllerFunctionalTest {
         Booking duplicateBooking = new Booking();
         duplicateBooking.setTicket(testTicket);
         duplicateBooking.setUser("testUser");  // Already exists
+        double conflicts = meterRegistry.get("tickets.bookings.conflicts").counter().count();
 
         mockMvc.perform(post("/api/bookings")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(duplicateBooking)))
                 .andExpect(status().isConflict())
                 .andExpect(jsonPath("$.error").value("Booking already exists for user: testUser and ticket ID: " + testTicket.getId()));
+
+        assertEquals(conflicts + 1, meterRegistry.get("tickets.bookings.conflicts").counter().count());
     }
-}
 
+    @Test
+    void shouldHoldAndConfirmTicket() throws Exception {
+        Ticket heldTicket = new Ticket();
+        heldTicket.setEvent("Held Event");
+        heldTicket.setSeat("H1");
+        heldTicket.setPrice(BigDecimal.valueOf(60.00));
+        heldTicket = ticketRepository.save(heldTicket);
+
+        String holdResponse = mockMvc.perform(post("/api/bookings/holds").param("ticketId", heldTicket.getId().toString()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.ticket.seat").value("H1"))
+                .andExpect(jsonPath("$.expiresAt").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        String holdId = objectMapper.readTree(holdResponse).get("holdId").asText();
+
+        mockMvc.perform(post("/api/bookings/holds").param("ticketId", heldTicket.getId().toString()))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/bookings/holds/{holdId}/confirm", holdId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"user\":\"holdUser\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.user").value("holdUser"))
+                .andExpect(jsonPath("$.ticket.seat").value("H1"));
+
+        mockMvc.perform(post("/api/bookings/holds/{holdId}/confirm", holdId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"user\":\"holdUser\"}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Hold not found or expired: " + holdId));
+    }
+
+    @Test
+    void shouldReleaseHeldTicket() throws Exception {
+        Ticket heldTicket = new Ticket();
+        heldTicket.setEvent("Released Event");
+        heldTicket.setSeat("R1");
+        heldTicket.setPrice(BigDecimal.valueOf(60.00));
+        heldTicket = ticketRepository.save(heldTicket);
+
+        String holdResponse = mockMvc.perform(post("/api/bookings/holds").param("ticketId", heldTicket.getId().toString()))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String holdId = objectMapper.readTree(holdResponse).get("holdId").asText();
+
+        mockMvc.perform(delete("/api/bookings/holds/{holdId}", holdId))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Hold Released Successfully."));
+
+        mockMvc.perform(post("/api/bookings/holds").param("ticketId", heldTicket.getId().toString()))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void shouldCheckoutCartAtomically() throws Exception {
+        Ticket first = saveTicket("Cart Event", "K1");
+        Ticket second = saveTicket("Cart Event", "K2");
+
+        mockMvc.perform(post("/api/bookings/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CartCheckoutRequest("cartUser", List.of(first.getId(), second.getId())))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].ticket.seat").value("K1"))
+                .andExpect(jsonPath("$[1].user").value("cartUser"));
+    }
+
+    @Test
+    void shouldRejectWholeCartWhenOneTicketIsTaken() throws Exception {
+        Ticket free = saveTicket("Cart Event", "K3");
+
+        mockMvc.perform(post("/api/bookings/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CartCheckoutRequest("cartUser", List.of(free.getId(), testTicket.getId())))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Booking already exists for ticket ID: " + testTicket.getId()));
+
+        // the free seat was released again, so it can still be booked on its own
+        mockMvc.perform(post("/api/bookings/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CartCheckoutRequest("cartUser", List.of(free.getId())))))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownTicketInCart() throws Exception {
+        mockMvc.perform(post("/api/bookings/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CartCheckoutRequest("cartUser", List.of(-1L)))))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Ticket not found for this id :: -1"));
+    }
+
+    private Ticket saveTicket(String event, String seat) {
+        Ticket ticket = new Ticket();
+        ticket.setEvent(event);
+        ticket.setSeat(seat);
+        ticket.setPrice(BigDecimal.valueOf(40.00));
+        return ticketRepository.save(ticket);
+    }
+}
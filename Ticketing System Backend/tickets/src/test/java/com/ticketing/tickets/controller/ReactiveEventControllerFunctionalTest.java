@@ -0,0 +1,132 @@
+package com.ticketing.tickets.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.entity.Event;
+import com.ticketing.tickets.exception.ResourceNotFoundException;
+import com.ticketing.tickets.service.ReactiveEventService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "tickets.events.gateway=reactive")
+@AutoConfigureMockMvc
+class ReactiveEventControllerFunctionalTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ReactiveEventService eventService;
+
+    private Event event;
+
+    @BeforeEach
+    public void setup() {
+        event = new Event();
+        event.setName("Test Event");
+        event.setLocation("Test Location");
+        event.setDate(new Date());
+    }
+
+    @Test
+    void testCreateEvent() throws Exception {
+        when(eventService.saveEvent(any(Event.class))).thenReturn(Mono.just(event));
+
+        MvcResult result = mockMvc.perform(post("/events")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(event)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("Test Event"));
+    }
+
+    @Test
+    void testGetAllEvents() throws Exception {
+        when(eventService.getAllEvents()).thenReturn(Flux.just(event));
+
+        MvcResult result = mockMvc.perform(get("/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(jsonPath("$[0].name").value("Test Event"));
+    }
+
+    @Test
+    void testGetEventById() throws Exception {
+        when(eventService.getEventById(anyString())).thenReturn(Mono.just(event));
+
+        MvcResult result = mockMvc.perform(get("/events/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Test Event"));
+    }
+
+    @Test
+    void testGetEventById_NotFound() throws Exception {
+        when(eventService.getEventById(anyString()))
+                .thenReturn(Mono.error(new ResourceNotFoundException("Event not found with id: 1")));
+
+        MvcResult result = mockMvc.perform(get("/events/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testUpdateEvent() throws Exception {
+        event.setName("Updated Event");
+        when(eventService.updateEvent(anyLong(), any(Event.class))).thenReturn(Mono.just(event));
+
+        MvcResult result = mockMvc.perform(put("/events/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(event)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Updated Event"));
+    }
+
+    @Test
+    void testDeleteEvent() throws Exception {
+        when(eventService.deleteEvent(anyLong())).thenReturn(Mono.empty());
+
+        MvcResult result = mockMvc.perform(delete("/events/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Event Deleted Successfully."));
+    }
+}
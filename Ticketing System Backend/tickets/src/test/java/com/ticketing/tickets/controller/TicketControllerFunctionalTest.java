@@ -1,9 +1,13 @@
 package com.ticketing.tickets.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.dto.BulkTicketRequest;
+import com.ticketing.tickets.dto.CursorPage;
 import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.exception.PreconditionFailedException;
 import com.ticketing.tickets.exception.ResourceNotFoundException;
 import com.ticketing.tickets.service.TicketService;
+import com.ticketing.tickets.storage.SegmentManifest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -11,15 +15,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -65,6 +80,33 @@ class TicketControllerFunctionalTest {
                 .andExpect(jsonPath("$.price").value(150.00));
     }
 
+    @Test
+    void shouldCreateTicketsInBulk() throws Exception {
+        Ticket secondTicket = new Ticket(null, "Test Event", "A2", BigDecimal.valueOf(100.00), null);
+        when(ticketService.saveTickets(anyList())).thenReturn(List.of(testTicket, secondTicket));
+
+        mockMvc.perform(post("/api/tickets/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkTicketRequest(List.of(testTicket, secondTicket)))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].seat").value("A1"))
+                .andExpect(jsonPath("$[1].seat").value("A2"));
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidTicketInBulk() throws Exception {
+        Ticket invalidTicket = new Ticket();
+        invalidTicket.setEvent("Test Event");
+        invalidTicket.setSeat("");
+        invalidTicket.setPrice(BigDecimal.valueOf(100.00));
+
+        mockMvc.perform(post("/api/tickets/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkTicketRequest(List.of(testTicket, invalidTicket)))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$['tickets[1].seat']").value("Seat is mandatory"));
+    }
+
     @Test
     void shouldGetAllTickets() throws Exception {
         when(ticketService.getAllTickets()).thenReturn(Arrays.asList(testTicket));
@@ -76,6 +118,35 @@ class TicketControllerFunctionalTest {
                 .andExpect(jsonPath("$[0].price").value(testTicket.getPrice().doubleValue()));
     }
 
+    @Test
+    void shouldAnswerUnchangedTicketListWithNotModified() throws Exception {
+        when(ticketService.getAllTickets()).thenReturn(Arrays.asList(testTicket));
+
+        String etag = mockMvc.perform(get("/api/tickets"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/tickets").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        // the 304 was answered from the change counter alone
+        verify(ticketService, times(1)).getAllTickets();
+    }
+
+    @Test
+    void shouldGetTicketsPage() throws Exception {
+        when(ticketService.getTicketsPage(isNull(), eq(1))).thenReturn(new CursorPage<>(List.of(testTicket), 1, "aWQ6MQ"));
+
+        mockMvc.perform(get("/api/tickets/page").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].event").value(testTicket.getEvent()))
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("aWQ6MQ"));
+    }
+
     @Test
     void shouldGetTicketById() throws Exception {
         when(ticketService.getTicketById(anyLong())).thenReturn(Optional.of(testTicket));
@@ -87,6 +158,27 @@ class TicketControllerFunctionalTest {
                 .andExpect(jsonPath("$.price").value(testTicket.getPrice().doubleValue()));
     }
 
+    @Test
+    void shouldTagTicketWithItsVersion() throws Exception {
+        testTicket.setId(1L);
+        testTicket.setVersion(3L);
+        when(ticketService.getTicketById(1L)).thenReturn(Optional.of(testTicket));
+
+        mockMvc.perform(get("/api/tickets/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"ticket-1-3\""));
+
+        mockMvc.perform(get("/api/tickets/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "W/\"ticket-1-3\""))
+                .andExpect(status().isNotModified());
+
+        testTicket.setVersion(4L);
+
+        mockMvc.perform(get("/api/tickets/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"ticket-1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"ticket-1-4\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
     @Test
     void shouldUpdateTicket() throws Exception {
         testTicket.setEvent("Updated Event");
@@ -100,6 +192,89 @@ class TicketControllerFunctionalTest {
                 .andExpect(jsonPath("$.event").value("Updated Event"));
     }
 
+    @Test
+    void shouldUpdateTicketAtTheVersionNamedByIfMatch() throws Exception {
+        testTicket.setId(1L);
+        testTicket.setVersion(4L);
+        when(ticketService.updateTicket(eq(1L), any(Ticket.class), eq(Set.of(3L)))).thenReturn(testTicket);
+
+        mockMvc.perform(put("/api/tickets/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"ticket-1-3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTicket)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"ticket-1-4\""));
+
+        verify(ticketService, never()).updateTicket(anyLong(), any(Ticket.class));
+    }
+
+    @Test
+    void shouldUpdateTicketAtAnyVersionListedInIfMatch() throws Exception {
+        testTicket.setId(1L);
+        testTicket.setVersion(5L);
+        when(ticketService.updateTicket(eq(1L), any(Ticket.class), eq(Set.of(3L, 4L)))).thenReturn(testTicket);
+
+        // weak and foreign tags in the list are skipped, the strong tags of this ticket are kept
+        mockMvc.perform(put("/api/tickets/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "W/\"ticket-1-2\", \"ticket-1-3\",\"ticket-2-9\", \"ticket-1-4\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTicket)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"ticket-1-5\""));
+    }
+
+    @Test
+    void shouldRejectIfMatchThatNamesNoVersionOfTheTicket() throws Exception {
+        for (String ifMatch : List.of("W/\"ticket-1-3\"", "\"ticket-2-3\"", "\"tickets-abc\"",
+                "W/\"ticket-1-3\", \"ticket-2-3\"")) {
+            mockMvc.perform(put("/api/tickets/{id}", 1L)
+                            .header(HttpHeaders.IF_MATCH, ifMatch)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(testTicket)))
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath("$.error").value("If-Match does not name a version of ticket 1: " + ifMatch));
+        }
+
+        verify(ticketService, never()).updateTicket(anyLong(), any(Ticket.class), anySet());
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedForStaleVersion() throws Exception {
+        when(ticketService.updateTicket(eq(1L), any(Ticket.class), eq(Set.of(3L))))
+                .thenThrow(new PreconditionFailedException("Ticket 1 has changed, current version is 4"));
+
+        mockMvc.perform(put("/api/tickets/{id}", 1L)
+                        .header(HttpHeaders.IF_MATCH, "\"ticket-1-3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTicket)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.error").value("Ticket 1 has changed, current version is 4"));
+    }
+
+    @Test
+    void shouldReturnConflictWhenUpdateLosesARace() throws Exception {
+        when(ticketService.updateTicket(anyLong(), any(Ticket.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, 1L));
+
+        mockMvc.perform(put("/api/tickets/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testTicket)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("The resource was modified concurrently, reload it and try again"));
+    }
+
+    @Test
+    void shouldUpdateTicketsInBulk() throws Exception {
+        testTicket.setId(1L);
+        when(ticketService.updateTickets(anyList())).thenReturn(List.of(testTicket));
+
+        mockMvc.perform(put("/api/tickets/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkTicketRequest(List.of(testTicket)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+
     @Test
     void shouldDeleteTicket() throws Exception {
         Mockito.doNothing().when(ticketService).deleteTicket(anyLong());
@@ -201,6 +376,31 @@ class TicketControllerFunctionalTest {
                 .andExpect(jsonPath("$[0].price").value(testTicket.getPrice().doubleValue()));
     }
 
+    @Test
+    void shouldGetTicketsPageFromS3() throws Exception {
+        when(ticketService.getTicketsPageFromS3("token-1", 2))
+                .thenReturn(new CursorPage<>(Arrays.asList(testTicket), 1, "token-2"));
+
+        mockMvc.perform(get("/api/tickets/S3/page").param("cursor", "token-1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].seat").value(testTicket.getSeat()))
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("token-2"));
+    }
+
+    @Test
+    void shouldWriteSegmentSnapshotToS3() throws Exception {
+        SegmentManifest manifest = new SegmentManifest(7L, 1L, 1L, List.of(new SegmentManifest.Segment(
+                "ticket-segments/7/segment-00000.ndjson.gz", 1L, 1L, 90L,
+                List.of(new SegmentManifest.Block(1L, 1L, 0L, 90L)))));
+        when(ticketService.snapshotTicketsToS3()).thenReturn(manifest);
+
+        mockMvc.perform(post("/api/tickets/S3/snapshot"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.ticketCount").value(1))
+                .andExpect(jsonPath("$.segments[0].key").value("ticket-segments/7/segment-00000.ndjson.gz"));
+    }
+
     @Test
     void shouldDeleteTicketFromS3() throws Exception {
         Mockito.doNothing().when(ticketService).deleteTicketFromS3(anyLong());
@@ -0,0 +1,93 @@
+package com.ticketing.tickets.inventory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private final HashedTimingWheel timingWheel = new HashedTimingWheel("test-wheel", 10, TimeUnit.MILLISECONDS, 8);
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    void testTimerFiresAfterDelay() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timingWheel.schedule(fired::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    }
+
+    @Test
+    void testTimerBeyondOneRotationWaitsForItsRound() throws Exception {
+        // 8 buckets of 10ms: a 200ms timer has to survive two full rotations
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timingWheel.schedule(fired::countDown, 200, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+    }
+
+    @Test
+    void testManyTimersAllFire() throws Exception {
+        int timers = 10_000;
+        CountDownLatch fired = new CountDownLatch(timers);
+        AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < timers; i++) {
+            timingWheel.schedule(fired::countDown, i % 100, TimeUnit.MILLISECONDS);
+        }
+        timingWheel.schedule(() -> {
+            failures.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }, 5, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(1, failures.get());
+    }
+
+    @Test
+    void testCancelledTimerNeverFiresAndLeavesTheWheel() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        HashedTimingWheel.Timer timer = timingWheel.schedule(fired::incrementAndGet, 200, TimeUnit.MILLISECONDS);
+        // let the worker move it into its bucket first
+        Thread.sleep(50);
+
+        assertTrue(timer.cancel());
+        assertFalse(timer.cancel());
+        Thread.sleep(50);
+        assertEquals(0, timingWheel.pendingTimers());
+
+        Thread.sleep(250);
+        assertEquals(0, fired.get());
+    }
+
+    @Test
+    void testCancelAfterFiringHasNoEffect() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        HashedTimingWheel.Timer timer = timingWheel.schedule(fired::countDown, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertFalse(timer.cancel());
+    }
+
+    @Test
+    void testScheduleAfterStopIsRejected() {
+        timingWheel.stop();
+
+        assertThrows(IllegalStateException.class, () -> timingWheel.schedule(() -> { }, 1, TimeUnit.MILLISECONDS));
+    }
+}
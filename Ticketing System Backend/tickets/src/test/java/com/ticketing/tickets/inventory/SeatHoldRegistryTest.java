@@ -0,0 +1,67 @@
+package com.ticketing.tickets.inventory;
+
+import com.ticketing.tickets.dto.SeatHold;
+import com.ticketing.tickets.entity.Ticket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SeatHoldRegistryTest {
+
+    private final SeatInventory seatInventory = mock(SeatInventory.class);
+    private final SeatHoldRegistry seatHoldRegistry =
+            new SeatHoldRegistry(seatInventory, Duration.ofMillis(100), Duration.ofMillis(10), 8);
+    private final Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+
+    @AfterEach
+    void tearDown() {
+        seatHoldRegistry.shutdown();
+    }
+
+    @Test
+    void testClaimFailsWhenSeatIsNoLongerHeld() {
+        when(seatInventory.tryHold(1L)).thenReturn(true);
+        when(seatInventory.confirmHeld(1L)).thenReturn(false);
+        SeatHold hold = seatHoldRegistry.hold(ticket).orElseThrow();
+
+        assertTrue(seatHoldRegistry.claim(hold.getHoldId()).isEmpty());
+        assertEquals(0, seatHoldRegistry.activeHolds());
+    }
+
+    @Test
+    void testClaimedHoldDoesNotExpire() throws Exception {
+        when(seatInventory.tryHold(1L)).thenReturn(true);
+        when(seatInventory.confirmHeld(1L)).thenReturn(true);
+        SeatHold hold = seatHoldRegistry.hold(ticket).orElseThrow();
+
+        assertTrue(seatHoldRegistry.claim(hold.getHoldId()).isPresent());
+        Thread.sleep(300);
+
+        verify(seatInventory, never()).releaseHeld(anyLong());
+    }
+
+    @Test
+    void testReleasedHoldIsReleasedOnce() throws Exception {
+        when(seatInventory.tryHold(1L)).thenReturn(true);
+        SeatHold hold = seatHoldRegistry.hold(ticket).orElseThrow();
+
+        assertTrue(seatHoldRegistry.release(hold.getHoldId()));
+        Thread.sleep(300);
+
+        verify(seatInventory, times(1)).releaseHeld(1L);
+    }
+
+    @Test
+    void testUnclaimedHoldExpires() {
+        when(seatInventory.tryHold(1L)).thenReturn(true);
+        seatHoldRegistry.hold(ticket);
+
+        verify(seatInventory, timeout(2000)).releaseHeld(1L);
+        assertEquals(0, seatHoldRegistry.activeHolds());
+    }
+}
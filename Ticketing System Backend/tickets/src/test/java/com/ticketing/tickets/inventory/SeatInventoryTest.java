@@ -0,0 +1,117 @@
+package com.ticketing.tickets.inventory;
+
+import com.ticketing.tickets.repository.BookingRepository;
+import com.ticketing.tickets.repository.TicketRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeatInventoryTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private SeatInventory seatInventory;
+
+    @Test
+    void testRebuildLoadsAvailabilityFromDatabase() {
+        when(ticketRepository.findAllIds()).thenReturn(List.of(1L, 2L));
+        when(bookingRepository.findBookedTicketIds()).thenReturn(List.of(2L));
+
+        seatInventory.rebuild();
+
+        assertEquals(SeatStatus.AVAILABLE, seatInventory.statusOf(1L));
+        assertEquals(SeatStatus.BOOKED, seatInventory.statusOf(2L));
+        verify(bookingRepository, never()).existsByTicketId(anyLong());
+    }
+
+    @Test
+    void testOnlyOneConcurrentClaimWins() throws Exception {
+        seatInventory.register(1L);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    if (seatInventory.tryBook(1L)) {
+                        winners.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(1, winners.get());
+        assertEquals(SeatStatus.BOOKED, seatInventory.statusOf(1L));
+    }
+
+    @Test
+    void testReleaseMakesSeatAvailableAgain() {
+        seatInventory.register(1L);
+
+        assertTrue(seatInventory.tryBook(1L));
+        seatInventory.release(1L);
+
+        assertTrue(seatInventory.tryBook(1L));
+    }
+
+    @Test
+    void testUnknownTicketIsSeededFromDatabaseOnce() {
+        when(bookingRepository.existsByTicketId(5L)).thenReturn(true);
+
+        assertFalse(seatInventory.tryBook(5L));
+        assertFalse(seatInventory.tryBook(5L));
+        verify(bookingRepository, times(1)).existsByTicketId(5L);
+    }
+
+    @Test
+    void testSeedingQueriesRunOutsideTheMapAndAgreeOnOneSeat() throws Exception {
+        // both seeds of seat 5 must be able to sit in the query at once, so no map lock is held
+        CountDownLatch bothQuerying = new CountDownLatch(2);
+        AtomicInteger overlapped = new AtomicInteger();
+        when(bookingRepository.existsByTicketId(5L)).thenAnswer(invocation -> {
+            bothQuerying.countDown();
+            if (bothQuerying.await(2, TimeUnit.SECONDS)) {
+                overlapped.incrementAndGet();
+            }
+            return false;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> first = executor.submit(() -> seatInventory.tryBook(5L));
+            Future<Boolean> second = executor.submit(() -> seatInventory.tryBook(5L));
+
+            assertNotEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertEquals(2, overlapped.get());
+            assertEquals(SeatStatus.BOOKED, seatInventory.statusOf(5L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
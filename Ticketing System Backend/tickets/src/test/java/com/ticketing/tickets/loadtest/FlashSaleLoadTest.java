@@ -0,0 +1,244 @@
+package com.ticketing.tickets.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.TicketsApplication;
+import com.ticketing.tickets.support.EventsApiStub;
+import com.ticketing.tickets.support.S3StandIn;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays on-sale traffic against the booking and ticket endpoints. The application runs with
+ * an in-process S3 stand-in in place of the AWS client and a stub events API, so nothing leaves
+ * the machine.
+ * <p>
+ * Load follows an open model: requests are sent at fixed arrival times, whether or not earlier
+ * ones have answered, the way independent users arrive at an on-sale. Latency is measured from
+ * each request's scheduled start, so time spent queued behind a slow server counts against it.
+ * <p>
+ * Opt-in, as it runs for a while and saturates the machine:
+ * {@code mvn test -Dtest=FlashSaleLoadTest -Dloadtest=true -Dloadtest.rate=2000 -Dloadtest.duration=10s -Dloadtest.seats=100}
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FlashSaleLoadTest {
+
+    private static final int RATE = Integer.getInteger("loadtest.rate", 2000);
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("loadtest.duration", "10s"));
+    private static final int SEATS = Integer.getInteger("loadtest.seats", 100);
+    private static final String BUCKET_NAME = "my-op-bucket";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private EventsApiStub eventsApi;
+    private S3StandIn s3;
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private long[] ticketIds;
+
+    @BeforeAll
+    void startApplication() throws Exception {
+        eventsApi = new EventsApiStub();
+        s3 = new S3StandIn();
+        ApplicationContextInitializer<GenericApplicationContext> standInS3 = applicationContext ->
+                applicationContext.registerBean("standInS3", S3Client.class, s3::client,
+                        definition -> definition.setPrimary(true));
+        context = new SpringApplicationBuilder(TicketsApplication.class)
+                .initializers(standInS3)
+                .run("--server.port=0",
+                        "--server.tomcat.accept-count=1000",
+                        "--logging.level.com.ticketing.tickets=WARN",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.datasource.url=jdbc:hsqldb:mem:loadtest",
+                        "--tickets.outbox.relay.enabled=true",
+                        "--tickets.events.api-url=" + eventsApi.url());
+        baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        ticketIds = createTickets();
+    }
+
+    @AfterAll
+    void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+        s3.close();
+        eventsApi.close();
+    }
+
+    @Test
+    void usersRacingForTheSameSeats() throws Exception {
+        Map<Long, AtomicInteger> confirmed = new ConcurrentHashMap<>();
+        Result result = run("bookings", i -> {
+            long ticketId = ticketIds[i % ticketIds.length];
+            String body = "{\"ticket\":{\"id\":" + ticketId + "},\"user\":\"fan-" + i + "\"}";
+            return new Call(HttpRequest.newBuilder(URI.create(baseUrl + "/api/bookings"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), status -> {
+                if (status == 201) {
+                    confirmed.computeIfAbsent(ticketId, id -> new AtomicInteger()).incrementAndGet();
+                }
+            });
+        });
+
+        // a seat confirmed to two users, either in the responses or in what was stored
+        long doubleConfirmed = confirmed.values().stream().filter(count -> count.get() > 1).count();
+        Map<Long, Integer> stored = new HashMap<>();
+        for (JsonNode booking : get("/api/bookings")) {
+            stored.merge(booking.path("ticketId").asLong(), 1, Integer::sum);
+        }
+        long doubleStored = stored.values().stream().filter(count -> count > 1).count();
+        System.out.printf("seats sold %d of %d, double-confirmed %d, double-stored %d%n%n",
+                stored.size(), SEATS, doubleConfirmed, doubleStored);
+
+        assertEquals(0, doubleConfirmed, "seats confirmed to more than one user");
+        assertEquals(0, doubleStored, "seats stored with more than one booking");
+        assertEquals(0, result.count(status -> status >= 500 || status < 0), "failed requests");
+    }
+
+    @Test
+    void browsingTicketsFromTheDatabaseAndS3() throws Exception {
+        awaitS3Objects();
+        Result result = run("ticket reads", i -> {
+            long ticketId = ticketIds[i % ticketIds.length];
+            String path = i % 2 == 0 ? "/api/tickets/" + ticketId : "/api/tickets/S3/" + ticketId;
+            return new Call(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(), status -> {
+            });
+        });
+
+        assertEquals(0, result.count(status -> status != 200), "failed requests");
+    }
+
+    private long[] createTickets() throws Exception {
+        StringBuilder tickets = new StringBuilder("{\"tickets\":[");
+        for (int i = 0; i < SEATS; i++) {
+            tickets.append(i == 0 ? "" : ",")
+                    .append("{\"event\":\"Flash Sale\",\"seat\":\"S").append(i).append("\",\"price\":49.99}");
+        }
+        tickets.append("]}");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/tickets/bulk"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(tickets.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode(), response.body());
+        long[] ids = new long[SEATS];
+        int i = 0;
+        for (JsonNode ticket : objectMapper.readTree(response.body())) {
+            ids[i++] = ticket.path("id").asLong();
+        }
+        return ids;
+    }
+
+    // tickets reach S3 through the outbox and the write-behind queue, shortly after the insert
+    private void awaitS3Objects() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (s3.objectCount(BUCKET_NAME, "tickets/") < SEATS) {
+            assertTrue(System.nanoTime() < deadline, "tickets were not written to S3");
+            Thread.sleep(100);
+        }
+    }
+
+    private JsonNode get(String path) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Sends {@code RATE} requests a second for {@code DURATION}, each at its scheduled time, and
+     * prints the throughput, latency percentiles and status codes.
+     */
+    private Result run(String scenario, IntFunction<Call> calls) {
+        int total = (int) (RATE * DURATION.toMillis() / 1000);
+        long interval = 1_000_000_000L / RATE;
+        long[] latencies = new long[total];
+        int[] statuses = new int[total];
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>(total);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduled = start + i * interval;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int request = i;
+            Call call = calls.apply(i);
+            inFlight.add(client.sendAsync(call.request(), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, failure) -> {
+                        latencies[request] = System.nanoTime() - scheduled;
+                        statuses[request] = failure == null ? response.statusCode() : -1;
+                        return null;
+                    })
+                    .thenAccept(ignored -> call.onStatus().accept(statuses[request])));
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Result result = new Result(latencies, statuses);
+        result.print(scenario, seconds);
+        return result;
+    }
+
+    private record Call(HttpRequest request, IntConsumer onStatus) {
+    }
+
+    private record Result(long[] latencies, int[] statuses) {
+
+        long count(IntPredicate status) {
+            return Arrays.stream(statuses).filter(status).count();
+        }
+
+        void print(String scenario, double seconds) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            Map<Integer, Integer> byStatus = new TreeMap<>();
+            for (int status : statuses) {
+                byStatus.merge(status, 1, Integer::sum);
+            }
+            System.out.printf("%n%s: %d requests at %d/s offered, %.0f/s completed%n",
+                    scenario, sorted.length, RATE, sorted.length / seconds);
+            System.out.printf("latency ms  p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), sorted[sorted.length - 1] / 1e6);
+            System.out.printf("status      %s%n", byStatus);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
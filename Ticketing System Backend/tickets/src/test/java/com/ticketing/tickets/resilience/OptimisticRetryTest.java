@@ -0,0 +1,52 @@
+package com.ticketing.tickets.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+
+    private final OptimisticRetry retry = new OptimisticRetry(3, Duration.ofMillis(1), Duration.ofMillis(5));
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void testRetriesUntilTheUpdateWins() {
+        String result = retry.call(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("ticket 1 was updated concurrently");
+            }
+            return "updated";
+        });
+
+        assertEquals("updated", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        OptimisticLockingFailureException conflict = new OptimisticLockingFailureException("ticket 1 was updated concurrently");
+
+        OptimisticLockingFailureException thrown = assertThrows(OptimisticLockingFailureException.class, () -> retry.call(() -> {
+            attempts.incrementAndGet();
+            throw conflict;
+        }));
+
+        assertSame(conflict, thrown);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testOtherFailuresAreNotRetried() {
+        assertThrows(DataIntegrityViolationException.class, () -> retry.call(() -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("seat taken");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+}
@@ -1,17 +1,27 @@
 package com.ticketing.tickets.service.impl;
 
+import com.ticketing.tickets.dto.BookingSummary;
+import com.ticketing.tickets.dto.SeatHold;
 import com.ticketing.tickets.entity.Booking;
 import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.exception.InvalidRequestException;
 import com.ticketing.tickets.exception.ResourceAlreadyExistsException;
 import com.ticketing.tickets.exception.ResourceNotFoundException;
+import com.ticketing.tickets.inventory.SeatHoldRegistry;
+import com.ticketing.tickets.inventory.SeatInventory;
 import com.ticketing.tickets.repository.BookingRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
@@ -28,64 +38,149 @@ class BookingServiceImplTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private SeatInventory seatInventory;
+
+    @Mock
+    private SeatHoldRegistry seatHoldRegistry;
+
     @InjectMocks
     private BookingServiceImpl bookingService;
 
 
     @Test
     void testSaveBooking() {
-        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
-        Booking booking = new Booking(1L, ticket, "John Doe", LocalDateTime.now());
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Booking booking = new Booking(1L, ticket, "John Doe", LocalDateTime.now(), null);
 
-        when(bookingRepository.findById(ticket.getId())).thenReturn(Optional.empty());
+        when(seatInventory.tryBook(ticket.getId())).thenReturn(true);
         when(bookingRepository.save(booking)).thenReturn(booking);
 
         Booking savedBooking = bookingService.saveBooking(booking);
 
         assertEquals(booking, savedBooking);
         verify(bookingRepository, times(1)).save(booking);
+        verify(bookingRepository, never()).findById(anyLong());
     }
 
     @Test
     void testSaveBookingAlreadyExists() {
-        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
-        Booking booking = new Booking(1L, ticket, "John Doe", LocalDateTime.now());
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Booking booking = new Booking(1L, ticket, "John Doe", LocalDateTime.now(), null);
+
+        when(seatInventory.tryBook(ticket.getId())).thenReturn(false);
+
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookingService.saveBooking(booking));
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testSaveBookingReleasesSeatWhenSaveFails() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Booking booking = new Booking(null, ticket, "John Doe", null, null);
+
+        when(seatInventory.tryBook(ticket.getId())).thenReturn(true);
+        when(bookingRepository.save(booking)).thenThrow(new IllegalStateException("database unavailable"));
+
+        assertThrows(IllegalStateException.class, () -> bookingService.saveBooking(booking));
+        verify(seatInventory, times(1)).release(ticket.getId());
+    }
+
+    @Test
+    void testSaveBookingTurnsUniqueTicketViolationIntoConflict() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Booking booking = new Booking(null, ticket, "John Doe", null, null);
 
-        when(bookingRepository.findById(ticket.getId())).thenReturn(Optional.of(booking));
+        when(seatInventory.tryBook(ticket.getId())).thenReturn(true);
+        when(bookingRepository.save(booking)).thenThrow(new DataIntegrityViolationException("uk_bookings_ticket_id"));
+        when(bookingRepository.existsByTicketId(ticket.getId())).thenReturn(true);
 
         assertThrows(ResourceAlreadyExistsException.class, () -> bookingService.saveBooking(booking));
+        verify(seatInventory, never()).release(anyLong());
+    }
+
+    @Test
+    void testCheckoutSavesAllBookingsInOneBatch() {
+        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket ticket2 = new Ticket(2L, "Concert", "A2", new BigDecimal("100.00"), null);
+
+        when(seatInventory.tryBook(anyLong())).thenReturn(true);
+        when(bookingRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Booking> bookings = bookingService.checkout("John Doe", Arrays.asList(ticket1, ticket2));
+
+        assertEquals(2, bookings.size());
+        assertEquals("John Doe", bookings.get(1).getUser());
+        verify(bookingRepository, times(1)).saveAllAndFlush(anyList());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testCheckoutReleasesClaimedSeatsWhenOneIsTaken() {
+        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket ticket2 = new Ticket(2L, "Concert", "A2", new BigDecimal("100.00"), null);
+
+        when(seatInventory.tryBook(1L)).thenReturn(true);
+        when(seatInventory.tryBook(2L)).thenReturn(false);
+
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookingService.checkout("John Doe", Arrays.asList(ticket1, ticket2)));
+        verify(seatInventory, times(1)).release(1L);
+        verify(seatInventory, never()).release(2L);
+        verify(bookingRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void testCheckoutReleasesClaimedSeatsWhenTheTransactionRollsBack() {
+        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket ticket2 = new Ticket(2L, "Concert", "A2", new BigDecimal("100.00"), null);
+
+        when(seatInventory.tryBook(anyLong())).thenReturn(true);
+        when(bookingRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bookingService.checkout("John Doe", Arrays.asList(ticket1, ticket2));
+            verify(seatInventory, never()).release(anyLong());
+
+            // the commit fails after checkout returned
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(seatInventory, times(1)).release(1L);
+        verify(seatInventory, times(1)).release(2L);
     }
 
     @Test
     void testGetAllBookings() {
-        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
-        Ticket ticket2 = new Ticket(2L, "Play", "B1", new BigDecimal("50.00"));
-        Booking booking1 = new Booking(1L, ticket1, "John Doe", LocalDateTime.now());
-        Booking booking2 = new Booking(2L, ticket2, "Jane Doe", LocalDateTime.now());
-        List<Booking> bookings = Arrays.asList(booking1, booking2);
+        BookingSummary booking1 = new BookingSummary(1L, "John Doe", LocalDateTime.now(), 1L, "Concert", "A1", new BigDecimal("100.00"));
+        BookingSummary booking2 = new BookingSummary(2L, "Jane Doe", LocalDateTime.now(), 2L, "Play", "B1", new BigDecimal("50.00"));
 
-        when(bookingRepository.findAll()).thenReturn(bookings);
+        when(bookingRepository.findAllSummaries()).thenReturn(Arrays.asList(booking1, booking2));
 
-        List<Booking> retrievedBookings = bookingService.getAllBookings();
+        List<BookingSummary> retrievedBookings = bookingService.getAllBookings();
 
         assertEquals(2, retrievedBookings.size());
-        verify(bookingRepository, times(1)).findAll();
+        verify(bookingRepository, times(1)).findAllSummaries();
+        verify(bookingRepository, never()).findAll();
     }
 
     @Test
     void testGetAllBookingsNoBookings() {
-        when(bookingRepository.findAll()).thenReturn(Collections.emptyList());
+        when(bookingRepository.findAllSummaries()).thenReturn(Collections.emptyList());
 
         ResourceNotFoundException thrown = assertThrows(ResourceNotFoundException.class, () -> bookingService.getAllBookings());
         assertEquals("No bookings found", thrown.getMessage());
 
-        verify(bookingRepository, times(1)).findAll();
+        verify(bookingRepository, times(1)).findAllSummaries();
     }
 
     @Test
     void testGetBookingById() {
-        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
-        Booking booking = new Booking(1L, ticket, "John Doe", LocalDateTime.now());
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Booking booking = new Booking(1L, ticket, "John Doe", LocalDateTime.now(), null);
 
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
 
@@ -98,25 +193,86 @@ class BookingServiceImplTest {
 
     @Test
     void testGetBookingsByUser() {
-        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
-        Booking booking1 = new Booking(1L, ticket1, "John Doe", LocalDateTime.now());
-        List<Booking> bookings = Arrays.asList(booking1);
+        BookingSummary booking1 = new BookingSummary(1L, "John Doe", LocalDateTime.now(), 1L, "Concert", "A1", new BigDecimal("100.00"));
 
-        when(bookingRepository.findByUser("John Doe")).thenReturn(bookings);
+        when(bookingRepository.findSummariesByUser("John Doe")).thenReturn(List.of(booking1));
 
-        List<Booking> retrievedBookings = bookingService.getBookingsByUser("John Doe");
+        List<BookingSummary> retrievedBookings = bookingService.getBookingsByUser("John Doe");
 
         assertEquals(1, retrievedBookings.size());
-        verify(bookingRepository, times(1)).findByUser("John Doe");
+        verify(bookingRepository, times(1)).findSummariesByUser("John Doe");
+    }
+
+    @Test
+    void testGetBookingByTicketId() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Booking booking = new Booking(1L, ticket, "John Doe", LocalDateTime.now(), null);
+
+        when(bookingRepository.findByTicketId(1L)).thenReturn(Optional.of(booking));
+
+        assertEquals(Optional.of(booking), bookingService.getBookingByTicketId(1L));
+    }
+
+    @Test
+    void testGetBookingsBetweenClampsThePageSize() {
+        LocalDateTime from = LocalDateTime.of(2024, 8, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 8, 2, 0, 0);
+        BookingSummary booking = new BookingSummary(1L, "John Doe", from.plusHours(1), 1L, "Concert", "A1", new BigDecimal("100.00"));
+
+        when(bookingRepository.findSummariesByBookingDateBetween(from, to, PageRequest.of(0, 100)))
+                .thenReturn(List.of(booking));
+
+        assertEquals(List.of(booking), bookingService.getBookingsBetween(from, to, 5000));
+    }
+
+    @Test
+    void testGetBookingsBetweenRejectsReversedRange() {
+        LocalDateTime from = LocalDateTime.of(2024, 8, 2, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 8, 1, 0, 0);
+
+        assertThrows(InvalidRequestException.class, () -> bookingService.getBookingsBetween(from, to, 10));
+        verifyNoInteractions(bookingRepository);
     }
 
     @Test
     void testGetBookingsByUserNoBookings() {
-        when(bookingRepository.findByUser("John Doe")).thenReturn(Collections.emptyList());
+        when(bookingRepository.findSummariesByUser("John Doe")).thenReturn(Collections.emptyList());
 
         ResourceNotFoundException thrown = assertThrows(ResourceNotFoundException.class, () -> bookingService.getBookingsByUser("John Doe"));
         assertEquals("No bookings found for user: John Doe", thrown.getMessage());
 
-        verify(bookingRepository, times(1)).findByUser("John Doe");
+        verify(bookingRepository, times(1)).findSummariesByUser("John Doe");
+    }
+
+    @Test
+    void testConfirmHoldSavesBookingForHeldTicket() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        SeatHold hold = new SeatHold("hold-1", ticket, Instant.now().plusSeconds(60));
+
+        when(seatHoldRegistry.claim("hold-1")).thenReturn(Optional.of(hold));
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Booking booking = bookingService.confirmHold("hold-1", "John Doe");
+
+        assertEquals(ticket, booking.getTicket());
+        assertEquals("John Doe", booking.getUser());
+        assertNotNull(booking.getBookingDate());
+    }
+
+    @Test
+    void testConfirmExpiredHold() {
+        when(seatHoldRegistry.claim("hold-1")).thenReturn(Optional.empty());
+
+        ResourceNotFoundException thrown = assertThrows(ResourceNotFoundException.class, () -> bookingService.confirmHold("hold-1", "John Doe"));
+        assertEquals("Hold not found or expired: hold-1", thrown.getMessage());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void testHoldUnavailableTicket() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        when(seatHoldRegistry.hold(ticket)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookingService.holdTicket(ticket));
     }
-}
\ No newline at end of file
+}
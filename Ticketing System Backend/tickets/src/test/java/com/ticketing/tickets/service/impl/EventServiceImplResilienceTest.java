@@ -0,0 +1,105 @@
+package com.ticketing.tickets.service.impl;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.ticketing.tickets.configuration.EventsApiConfig;
+import com.ticketing.tickets.entity.Event;
+import com.ticketing.tickets.exception.ServiceUnavailableException;
+import com.ticketing.tickets.resilience.Bulkhead;
+import com.ticketing.tickets.resilience.CircuitBreaker;
+import com.ticketing.tickets.support.EventsApiStub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the events service over the real pooled HTTP client against an in-process stub API.
+ */
+class EventServiceImplResilienceTest {
+
+    private final EventsApiConfig config = new EventsApiConfig();
+    private EventsApiStub stub;
+    private CloseableHttpClient httpClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new EventsApiStub();
+        httpClient = config.eventsHttpClient(4, Duration.ofSeconds(1), Duration.ofMillis(300),
+                Duration.ofMillis(100), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        stub.close();
+    }
+
+    @Test
+    void testEventIsFetchedOverPooledClient() {
+        stub.respond(200, "{\"id\":\"1\",\"name\":\"Concert\",\"location\":\"Arena\"}");
+        EventServiceImpl eventService = eventService(new CircuitBreaker("events-api", 4, 4, 50, Duration.ofSeconds(30), 1),
+                new Bulkhead(4, Duration.ZERO));
+
+        Event event = eventService.getEventById("1");
+
+        assertEquals("Concert", event.getName());
+        assertEquals(1, stub.requestCount());
+    }
+
+    @Test
+    void testSlowApiTimesOut() {
+        stub.respondSlowly(Duration.ofSeconds(2), "{\"id\":\"1\"}");
+        EventServiceImpl eventService = eventService(new CircuitBreaker("events-api", 4, 4, 50, Duration.ofSeconds(30), 1),
+                new Bulkhead(4, Duration.ZERO));
+
+        long start = System.nanoTime();
+        assertThrows(ServiceUnavailableException.class, () -> eventService.getEventById("1"));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+    }
+
+    @Test
+    void testServerErrorsOpenCircuit() {
+        stub.respond(500, "{\"error\":\"boom\"}");
+        CircuitBreaker breaker = new CircuitBreaker("events-api", 4, 4, 50, Duration.ofSeconds(30), 1);
+        EventServiceImpl eventService = eventService(breaker, new Bulkhead(4, Duration.ZERO));
+        for (int i = 0; i < 4; i++) {
+            String id = String.valueOf(i);
+            assertThrows(ServiceUnavailableException.class, () -> eventService.getEventById(id));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertThrows(ServiceUnavailableException.class, () -> eventService.getEventById("9"));
+        assertEquals(List.of(), eventService.getAllEvents());
+        assertEquals(4, stub.requestCount());
+    }
+
+    @Test
+    void testBulkheadRejectsCallsBeyondLimit() throws Exception {
+        stub.respondSlowly(Duration.ofMillis(250), "{\"id\":\"1\"}");
+        EventServiceImpl eventService = eventService(new CircuitBreaker("events-api", 4, 4, 50, Duration.ofSeconds(30), 1),
+                new Bulkhead(1, Duration.ZERO));
+        CompletableFuture<Event> first = CompletableFuture.supplyAsync(() -> eventService.getEventById("1"));
+        while (stub.requestCount() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> eventService.getEventById("2"));
+        assertEquals("1", first.get().getId());
+        assertEquals(1, stub.requestCount());
+    }
+
+    private EventServiceImpl eventService(CircuitBreaker breaker, Bulkhead bulkhead) {
+        return new EventServiceImpl(config.restTemplate(httpClient), breaker, bulkhead, new SimpleMeterRegistry(), stub.url(),
+                Duration.ofMinutes(1), Duration.ofHours(1), Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+}
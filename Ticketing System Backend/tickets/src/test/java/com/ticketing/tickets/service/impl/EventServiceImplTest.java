@@ -3,16 +3,36 @@ package com.ticketing.tickets.service.impl;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.ticketing.tickets.entity.Event;
+import com.ticketing.tickets.exception.ResourceNotFoundException;
+import com.ticketing.tickets.exception.ServiceUnavailableException;
+import com.ticketing.tickets.resilience.Bulkhead;
+import com.ticketing.tickets.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -25,15 +45,32 @@ class EventServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
     private EventServiceImpl eventService ;
 
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<Runnable> backgroundTasks = new ArrayList<>();
+
+    private boolean deferBackgroundTasks;
+
     private Event testEvent;
 
     private static final String MOCK_API_URL = "https://66be4c7774dfc195586f1cc1.mockapi.io/api/events";
 
     @BeforeEach
     void setUp() {
+        // loads run on the calling thread; once deferBackgroundTasks is set, refreshes are queued
+        // and only run when the test says so
+        eventService = newEventService(task -> {
+            if (deferBackgroundTasks) {
+                backgroundTasks.add(task);
+            } else {
+                task.run();
+            }
+        });
+
         // Initialize a test event
         testEvent = new Event();
         testEvent.setId("1");
@@ -76,23 +113,178 @@ class EventServiceImplTest {
 
     @Test
     void testUpdateEvent() {
-        when(restTemplate.getForObject(anyString(), eq(Event.class))).thenReturn(testEvent);
+        when(restTemplate.exchange(eq(MOCK_API_URL + "/1"), eq(HttpMethod.PUT), any(HttpEntity.class), eq(Event.class)))
+                .thenReturn(ResponseEntity.ok(testEvent));
 
         Event updatedEvent = eventService.updateEvent(1L, testEvent);
 
         assertEquals(testEvent, updatedEvent);
-        verify(restTemplate, times(2)).getForObject(MOCK_API_URL + "/1", Event.class);
-        verify(restTemplate, times(1)).put(MOCK_API_URL + "/1", testEvent);
+        // the PUT response is cached, so reading the event back costs no extra call
+        assertEquals(testEvent, eventService.getEventById("1"));
+        verify(restTemplate, times(1)).exchange(eq(MOCK_API_URL + "/1"), eq(HttpMethod.PUT), any(HttpEntity.class), eq(Event.class));
+        verify(restTemplate, never()).getForObject(anyString(), eq(Event.class));
     }
 
     @Test
     void testUpdateEvent_NotFound() {
-        when(restTemplate.getForObject(anyString(), eq(Event.class))).thenReturn(null);
+        when(restTemplate.exchange(eq(MOCK_API_URL + "/1"), eq(HttpMethod.PUT), any(HttpEntity.class), eq(Event.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", HttpHeaders.EMPTY, null, null));
 
-        assertThrows(NullPointerException.class, () -> eventService.updateEvent(1L, testEvent));
+        ResourceNotFoundException exception =
+                assertThrows(ResourceNotFoundException.class, () -> eventService.updateEvent(1L, testEvent));
 
+        assertEquals("Event not found with id: 1", exception.getMessage());
+        verify(restTemplate, never()).getForObject(anyString(), eq(Event.class));
+    }
+
+    @Test
+    void testConcurrentLookupsShareOneUpstreamCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.getForObject(MOCK_API_URL + "/1", Event.class)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return testEvent;
+        });
+        when(restTemplate.getForObject(MOCK_API_URL, List.class)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(testEvent);
+        });
+        ExecutorService loads = Executors.newCachedThreadPool();
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            EventServiceImpl service = newEventService(loads);
+            List<Future<Event>> byId = new ArrayList<>();
+            List<Future<List<Event>>> lists = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                byId.add(callers.submit(() -> service.getEventById("1")));
+                lists.add(callers.submit(service::getAllEvents));
+            }
+            // give every caller the chance to join the in-flight loads before they complete
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<Event> result : byId) {
+                assertEquals(testEvent, result.get(5, TimeUnit.SECONDS));
+            }
+            for (Future<List<Event>> result : lists) {
+                assertEquals(List.of(testEvent), result.get(5, TimeUnit.SECONDS));
+            }
+            verify(restTemplate, times(1)).getForObject(MOCK_API_URL + "/1", Event.class);
+            verify(restTemplate, times(1)).getForObject(MOCK_API_URL, List.class);
+        } finally {
+            callers.shutdownNow();
+            loads.shutdownNow();
+        }
+    }
+
+    @Test
+    void testEventsAreServedFromCacheWithinRefreshWindow() {
+        when(restTemplate.getForObject(MOCK_API_URL, List.class)).thenReturn(List.of(testEvent));
+        when(restTemplate.getForObject(MOCK_API_URL + "/1", Event.class)).thenReturn(testEvent);
+
+        eventService.getAllEvents();
+        eventService.getEventById("1");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertEquals(List.of(testEvent), eventService.getAllEvents());
+        assertEquals(testEvent, eventService.getEventById("1"));
+        verify(restTemplate, times(1)).getForObject(MOCK_API_URL, List.class);
         verify(restTemplate, times(1)).getForObject(MOCK_API_URL + "/1", Event.class);
-        verify(restTemplate, never()).put(anyString(), any(Event.class));
+    }
+
+    @Test
+    void testStaleEventsAreServedWhileRefreshing() {
+        Event renamed = new Event();
+        renamed.setId("1");
+        renamed.setName("Renamed Event");
+        when(restTemplate.getForObject(MOCK_API_URL + "/1", Event.class))
+                .thenReturn(testEvent)
+                .thenReturn(renamed);
+        eventService.getEventById("1");
+        deferBackgroundTasks = true;
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        // past the soft TTL the cached value is returned and a reload is triggered
+        assertEquals(testEvent, eventService.getEventById("1"));
+        runBackgroundTasks();
+        assertEquals(renamed, eventService.getEventById("1"));
+        verify(restTemplate, times(2)).getForObject(MOCK_API_URL + "/1", Event.class);
+    }
+
+    @Test
+    void testFailedRefreshKeepsServingCachedEvents() {
+        when(restTemplate.getForObject(MOCK_API_URL, List.class))
+                .thenReturn(List.of(testEvent))
+                .thenThrow(new ResourceAccessException("timeout"));
+        eventService.getAllEvents();
+        deferBackgroundTasks = true;
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        assertEquals(List.of(testEvent), eventService.getAllEvents());
+        runBackgroundTasks();
+        assertEquals(List.of(testEvent), eventService.getAllEvents());
+    }
+
+    @Test
+    void testWritesUpdateAndInvalidateCache() {
+        when(restTemplate.getForObject(MOCK_API_URL, List.class)).thenReturn(List.of(testEvent));
+        when(restTemplate.postForObject(anyString(), any(Event.class), eq(Event.class))).thenReturn(testEvent);
+        eventService.getAllEvents();
+
+        eventService.saveEvent(testEvent);
+
+        assertEquals(testEvent, eventService.getEventById("1"));
+        eventService.getAllEvents();
+        verify(restTemplate, never()).getForObject(MOCK_API_URL + "/1", Event.class);
+        verify(restTemplate, times(2)).getForObject(MOCK_API_URL, List.class);
+    }
+
+    @Test
+    void testDeleteEventInvalidatesCache() {
+        when(restTemplate.getForObject(MOCK_API_URL + "/1", Event.class)).thenReturn(testEvent);
+        eventService.getEventById("1");
+
+        eventService.deleteEvent(1L);
+        eventService.getEventById("1");
+
+        verify(restTemplate, times(2)).getForObject(MOCK_API_URL + "/1", Event.class);
+    }
+
+    @Test
+    void testOpenCircuitFailsFastWithFallback() {
+        when(restTemplate.getForObject(anyString(), eq(Event.class))).thenThrow(new ResourceAccessException("timeout"));
+        for (int i = 0; i < 4; i++) {
+            String id = String.valueOf(i);
+            assertThrows(ServiceUnavailableException.class, () -> eventService.getEventById(id));
+        }
+        clearInvocations(restTemplate);
+
+        assertThrows(ServiceUnavailableException.class, () -> eventService.getEventById("1"));
+        assertEquals(List.of(), eventService.getAllEvents());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void testClientErrorsDoNotOpenCircuit() {
+        when(restTemplate.getForObject(anyString(), eq(Event.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+        for (int i = 0; i < 5; i++) {
+            String id = String.valueOf(i);
+            assertThrows(HttpClientErrorException.class, () -> eventService.getEventById(id));
+        }
+        verify(restTemplate, times(5)).getForObject(anyString(), eq(Event.class));
+    }
+
+    @Test
+    void testApiCallsAreTimedByOperationAndOutcome() {
+        when(restTemplate.getForObject(MOCK_API_URL + "/1", Event.class)).thenReturn(testEvent);
+        when(restTemplate.getForObject(MOCK_API_URL + "/2", Event.class))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        eventService.getEventById("1");
+        assertThrows(HttpClientErrorException.class, () -> eventService.getEventById("2"));
+
+        assertEquals(1, meterRegistry.get("tickets.events.api").tags("operation", "get", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("tickets.events.api").tags("operation", "get", "outcome", "client_error").timer().count());
     }
 
     @Test
@@ -104,5 +296,15 @@ class EventServiceImplTest {
         verify(restTemplate, times(1)).delete(MOCK_API_URL + "/1");
     }
 
+    private EventServiceImpl newEventService(Executor loadExecutor) {
+        return new EventServiceImpl(restTemplate, new CircuitBreaker("events-api", 4, 4, 50, Duration.ofSeconds(30), 1),
+                new Bulkhead(4, Duration.ZERO), meterRegistry, MOCK_API_URL, Duration.ofMinutes(1), Duration.ofHours(1),
+                nanos::get, loadExecutor);
+    }
 
-}
\ No newline at end of file
+    private void runBackgroundTasks() {
+        List<Runnable> tasks = new ArrayList<>(backgroundTasks);
+        backgroundTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,125 @@
+package com.ticketing.tickets.service.impl;
+
+import com.ticketing.tickets.configuration.EventsApiConfig;
+import com.ticketing.tickets.entity.Event;
+import com.ticketing.tickets.exception.ResourceNotFoundException;
+import com.ticketing.tickets.exception.ServiceUnavailableException;
+import com.ticketing.tickets.resilience.CircuitBreaker;
+import com.ticketing.tickets.support.EventsApiStub;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the reactive events gateway over a real Reactor Netty client against an in-process stub API.
+ */
+class ReactiveEventServiceImplTest {
+
+    private static final String CONCERT = "{\"id\":\"1\",\"name\":\"Concert\",\"location\":\"Arena\"}";
+
+    private final EventsApiConfig config = new EventsApiConfig();
+    private EventsApiStub stub;
+    private ConnectionProvider connectionProvider;
+    private CircuitBreaker breaker;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReactiveEventServiceImpl eventService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new EventsApiStub();
+        connectionProvider = config.eventsConnectionProvider(4, 1000, Duration.ofSeconds(1), Duration.ofSeconds(30));
+        WebClient webClient = config.eventsWebClient(WebClient.builder(), connectionProvider,
+                Duration.ofSeconds(1), Duration.ofMillis(300));
+        breaker = new CircuitBreaker("events-api", 4, 4, 50, Duration.ofSeconds(30), 1);
+        eventService = new ReactiveEventServiceImpl(webClient, breaker, meterRegistry, stub.url(), Duration.ofMinutes(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        stub.close();
+    }
+
+    @Test
+    void testEventIsFetchedAndCached() {
+        stub.respond(200, CONCERT);
+
+        assertEquals("Concert", eventService.getEventById("1").block().getName());
+        assertEquals("Concert", eventService.getEventById("1").block().getName());
+        assertEquals(1, stub.requestCount());
+    }
+
+    @Test
+    void testConcurrentLookupsShareOneUpstreamCall() {
+        stub.respondSlowly(Duration.ofMillis(200), CONCERT);
+
+        // a thousand subscribers in flight at once, on a four-connection pool
+        List<Event> events = Flux.range(0, 1000)
+                .flatMap(i -> eventService.getEventById("1"), 1000)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(1000, events.size());
+        assertEquals(1, stub.requestCount());
+    }
+
+    @Test
+    void testMissingEventIsNotFound() {
+        stub.respond(404, "");
+
+        Mono<Event> lookup = eventService.getEventById("1");
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, lookup::block);
+        assertEquals("Event not found with id: 1", exception.getMessage());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void testUpdateIsOneRoundTrip() {
+        stub.respond(200, CONCERT);
+
+        Event changes = new Event();
+        changes.setName("Concert");
+        assertEquals("Concert", eventService.updateEvent(1L, changes).block().getName());
+        assertEquals("Concert", eventService.getEventById("1").block().getName());
+
+        assertEquals(1, stub.requestCount());
+    }
+
+    @Test
+    void testServerErrorsOpenCircuit() {
+        stub.respond(500, "{\"error\":\"boom\"}");
+        for (int i = 0; i < 4; i++) {
+            Mono<Event> lookup = eventService.getEventById(String.valueOf(i));
+            assertThrows(ServiceUnavailableException.class, lookup::block);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        Mono<Event> rejected = eventService.getEventById("9");
+        assertThrows(ServiceUnavailableException.class, rejected::block);
+        assertEquals(4, stub.requestCount());
+    }
+
+    @Test
+    void testSlowApiTimesOutAndListFallsBackToEmpty() {
+        stub.respondSlowly(Duration.ofSeconds(2), "[" + CONCERT + "]");
+
+        List<Event> events = eventService.getAllEvents().collectList().block();
+
+        // the read timeout cut the call short and counted as a failure, the slow answer was never used
+        assertEquals(List.of(), events);
+        assertEquals(1, meterRegistry.get("tickets.events.api").tag("operation", "list").tag("outcome", "error").timer().count());
+        assertTrue(meterRegistry.find("tickets.events.api").tag("outcome", "success").timers().isEmpty());
+    }
+}
@@ -1,25 +1,49 @@
 package com.ticketing.tickets.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.configuration.BlockingTaskExecutors;
+import com.ticketing.tickets.dto.CursorPage;
+import com.ticketing.tickets.entity.OutboxOperation;
 import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.entity.TicketOutbox;
+import com.ticketing.tickets.exception.InvalidRequestException;
+import com.ticketing.tickets.exception.PreconditionFailedException;
 import com.ticketing.tickets.exception.ResourceNotFoundException;
+import com.ticketing.tickets.inventory.SeatInventory;
 import com.ticketing.tickets.repository.TicketRepository;
+import com.ticketing.tickets.repository.TicketOutboxRepository;
+import com.ticketing.tickets.resilience.OptimisticRetry;
+import com.ticketing.tickets.storage.S3TicketCache;
+import com.ticketing.tickets.storage.S3TicketMirror;
+import com.ticketing.tickets.storage.TicketSegmentStore;
+import com.ticketing.tickets.util.KeysetCursor;
+import com.ticketing.tickets.util.NdjsonExporter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import jakarta.persistence.EntityManagerFactory;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.core.ResponseBytes;
-import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,26 +57,102 @@ class TicketServiceImplTest {
     @Mock
     private S3Client amazonS3;
 
+    @Mock
+    private NdjsonExporter ndjsonExporter;
+
+    @Mock
+    private SeatInventory seatInventory;
+
+    @Mock
+    private TicketOutboxRepository outboxRepository;
+
+    @Mock
+    private TicketSegmentStore segmentStore;
+
+    @Mock
+    private S3TicketCache ticketCache;
+
+    @Mock
+    private S3TicketMirror ticketMirror;
+
+    @Spy
+    private BlockingTaskExecutors taskExecutors = new BlockingTaskExecutors(false);
+
+    @Spy
+    private OptimisticRetry ticketUpdateRetry = new OptimisticRetry(3, Duration.ZERO, Duration.ZERO);
+
+    @Mock
+    private TransactionOperations transactionOperations;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EntityManagerFactory entityManagerFactory;
+
     @InjectMocks
     private TicketServiceImpl ticketService;
 
     @Test
     void testSaveTicket() {
-        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
-        when(ticketRepository.save(ticket)).thenReturn(ticket);
+        // the id a client sends is ignored, the Angular form sends 0
+        Ticket ticket = new Ticket(0L, "Concert", "A1", new BigDecimal("100.00"), 4L);
+        when(ticketRepository.save(ticket)).thenAnswer(invocation -> {
+            Ticket saved = invocation.getArgument(0);
+            assertNull(saved.getId());
+            assertNull(saved.getVersion());
+            saved.setId(1L);
+            saved.setVersion(0L);
+            return saved;
+        });
 
         Ticket savedTicket = ticketService.saveTicket(ticket);
 
         assertNotNull(savedTicket);
         assertEquals(ticket, savedTicket);
         verify(ticketRepository, times(1)).save(ticket);
-        verify(amazonS3, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(seatInventory, times(1)).register(1L);
+        verify(outboxRepository, times(1)).save(argThat((TicketOutbox entry) -> entry.getOperation() == OutboxOperation.UPSERT
+                && entry.getObjectKey().equals("tickets/Ticket_1.json")
+                && entry.getBucket().equals("my-op-bucket")
+                && entry.getPayload().contains("\"seat\"")));
+        verifyNoInteractions(amazonS3);
+    }
+
+    @Test
+    void testSaveTicketsInsertsBatchAndRecordsOutbox() {
+        Ticket ticket1 = new Ticket(null, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket ticket2 = new Ticket(null, "Concert", "A2", new BigDecimal("100.00"), null);
+        when(ticketRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Ticket> batch = invocation.getArgument(0);
+            long id = 1;
+            for (Ticket ticket : batch) {
+                ticket.setId(id++);
+            }
+            return batch;
+        });
+
+        List<Ticket> savedTickets = ticketService.saveTickets(Arrays.asList(ticket1, ticket2));
+
+        assertEquals(2, savedTickets.size());
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verify(seatInventory, times(1)).register(1L);
+        verify(seatInventory, times(1)).register(2L);
+        verify(outboxRepository, times(1)).saveAll(argThat((List<TicketOutbox> entries) -> entries.size() == 2));
+    }
+
+    @Test
+    void shouldRejectBatchWithDuplicateSeats() {
+        Ticket ticket1 = new Ticket(null, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket ticket2 = new Ticket(null, "Concert", "A1", new BigDecimal("120.00"), null);
+
+        Exception exception = assertThrows(InvalidRequestException.class, () -> ticketService.saveTickets(Arrays.asList(ticket1, ticket2)));
+
+        assertEquals("Duplicate seat in batch: A1 for event: Concert", exception.getMessage());
+        verify(ticketRepository, never()).insertAll(anyList());
     }
 
     @Test
     void testGetAllTickets() {
-        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
-        Ticket ticket2 = new Ticket(2L, "Play", "B1", new BigDecimal("50.00"));
+        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket ticket2 = new Ticket(2L, "Play", "B1", new BigDecimal("50.00"), null);
         List<Ticket> tickets = Arrays.asList(ticket1, ticket2);
 
         when(ticketRepository.findAll()).thenReturn(tickets);
@@ -66,9 +166,56 @@ class TicketServiceImplTest {
         verify(ticketRepository, times(1)).findAll();
     }
 
+    @Test
+    void testGetTicketsPageReturnsNextCursorWhenMoreRowsExist() {
+        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket ticket2 = new Ticket(2L, "Play", "B1", new BigDecimal("50.00"), null);
+        Ticket ticket3 = new Ticket(3L, "Opera", "C1", new BigDecimal("75.00"), null);
+
+        when(ticketRepository.findByIdGreaterThanOrderByIdAsc(1L, PageRequest.of(0, 3)))
+                .thenReturn(Arrays.asList(ticket2, ticket3, new Ticket(4L, "Ballet", "D1", new BigDecimal("20.00"), null)));
+
+        CursorPage<Ticket> page = ticketService.getTicketsPage(KeysetCursor.encode(ticket1.getId()), 2);
+
+        assertEquals(2, page.getSize());
+        assertEquals(Arrays.asList(ticket2, ticket3), page.getContent());
+        assertEquals(3L, KeysetCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void testGetTicketsPageLastPageHasNoCursor() {
+        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        when(ticketRepository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, PageRequest.of(0, KeysetCursor.MAX_PAGE_SIZE + 1)))
+                .thenReturn(List.of(ticket1));
+
+        CursorPage<Ticket> page = ticketService.getTicketsPage(null, 10_000);
+
+        assertEquals(1, page.getSize());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldThrowExceptionForMalformedCursor() {
+        Exception exception = assertThrows(InvalidRequestException.class, () -> ticketService.getTicketsPage("not-a-cursor", 10));
+
+        assertEquals("Invalid cursor: not-a-cursor", exception.getMessage());
+        verifyNoInteractions(ticketRepository);
+    }
+
+    @Test
+    void testExportTicketsStreamsRepositoryRows() throws Exception {
+        Stream<Ticket> rows = Stream.of(new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(ticketRepository.streamAllOrderById()).thenReturn(rows);
+        when(ndjsonExporter.export(rows, out)).thenReturn(1L);
+
+        assertEquals(1L, ticketService.exportTickets(out));
+        verify(ticketRepository, never()).findAll();
+    }
+
     @Test
     void testGetTicketById() {
-        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
         when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
 
         Optional<Ticket> retrievedTicket = ticketService.getTicketById(1L);
@@ -80,8 +227,8 @@ class TicketServiceImplTest {
 
     @Test
     void testUpdateTicket() {
-        Ticket existingTicket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
-        Ticket updatedTicket = new Ticket(1L, "Concert Updated", "A2", new BigDecimal("150.00"));
+        Ticket existingTicket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket updatedTicket = new Ticket(1L, "Concert Updated", "A2", new BigDecimal("150.00"), null);
 
         when(ticketRepository.findById(1L)).thenReturn(Optional.of(existingTicket));
         when(ticketRepository.save(existingTicket)).thenReturn(updatedTicket);
@@ -93,12 +240,97 @@ class TicketServiceImplTest {
         assertEquals(updatedTicket.getPrice(), result.getPrice());
         verify(ticketRepository, times(1)).findById(1L);
         verify(ticketRepository, times(1)).save(existingTicket);
-        verify(amazonS3, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(outboxRepository, times(1)).save(argThat((TicketOutbox entry) -> entry.getOperation() == OutboxOperation.UPSERT
+                && entry.getObjectKey().equals("tickets/Ticket_1.json")
+                && entry.getBucket().equals("my-op-bucket")
+                && entry.getPayload().contains("\"seat\"")));
+        verifyNoInteractions(amazonS3);
+    }
+
+    @Test
+    void testConditionalUpdateAppliesToTheExpectedVersion() {
+        Ticket existingTicket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), 3L);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(existingTicket));
+        when(ticketRepository.save(existingTicket)).thenReturn(existingTicket);
+
+        Ticket result = ticketService.updateTicket(1L, new Ticket(1L, "Concert", "A1", new BigDecimal("120.00"), 3L), Set.of(3L));
+
+        assertEquals(new BigDecimal("120.00"), result.getPrice());
+        verify(ticketRepository, times(1)).save(existingTicket);
+    }
+
+    @Test
+    void testConditionalUpdateAppliesWhenAnyExpectedVersionIsCurrent() {
+        Ticket existingTicket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), 4L);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(existingTicket));
+        when(ticketRepository.save(existingTicket)).thenReturn(existingTicket);
+
+        Ticket result = ticketService.updateTicket(1L, new Ticket(1L, "Concert", "A1", new BigDecimal("120.00"), 3L), Set.of(3L, 4L));
+
+        assertEquals(new BigDecimal("120.00"), result.getPrice());
+    }
+
+    @Test
+    void testConditionalUpdateRejectsStaleVersion() {
+        Ticket existingTicket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), 4L);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(existingTicket));
+
+        Exception exception = assertThrows(PreconditionFailedException.class, () ->
+                ticketService.updateTicket(1L, new Ticket(1L, "Concert", "A1", new BigDecimal("120.00"), 3L), Set.of(3L)));
+
+        assertEquals("Ticket 1 has changed, current version is 4", exception.getMessage());
+        assertEquals(new BigDecimal("100.00"), existingTicket.getPrice());
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    void testBulkUpdateRetriesTicketThatLostARace() {
+        runTransactionsInline();
+        Ticket existingTicket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), 0L);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(existingTicket));
+        when(ticketRepository.save(existingTicket))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, 1L))
+                .thenReturn(existingTicket);
+
+        List<Ticket> result = ticketService.updateTickets(List.of(new Ticket(1L, "Concert", "A1", new BigDecimal("120.00"), null)));
+
+        assertEquals(new BigDecimal("120.00"), result.get(0).getPrice());
+        // each attempt re-reads the ticket in a transaction of its own
+        verify(transactionOperations, times(2)).execute(any());
+        verify(ticketRepository, times(2)).findById(1L);
+        verify(outboxRepository, times(1)).save(any(TicketOutbox.class));
+    }
+
+    @Test
+    void testBulkUpdateGivesUpAfterRepeatedConflicts() {
+        runTransactionsInline();
+        Ticket existingTicket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), 0L);
+        when(ticketRepository.findById(1L)).thenReturn(Optional.of(existingTicket));
+        when(ticketRepository.save(existingTicket)).thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, 1L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () ->
+                ticketService.updateTickets(List.of(new Ticket(1L, "Concert", "A1", new BigDecimal("120.00"), null))));
+
+        verify(ticketRepository, times(3)).save(existingTicket);
+    }
+
+    @Test
+    void testBulkUpdateRejectsTicketsWithoutIdOrTwice() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+
+        assertThrows(InvalidRequestException.class, () ->
+                ticketService.updateTickets(List.of(new Ticket(null, "Concert", "A1", new BigDecimal("100.00"), null))));
+        Exception exception = assertThrows(InvalidRequestException.class, () ->
+                ticketService.updateTickets(List.of(ticket, ticket)));
+
+        assertEquals("Duplicate ticket in batch: 1", exception.getMessage());
+        verifyNoInteractions(transactionOperations, ticketRepository);
     }
 
     @Test
     void testDeleteTicket() {
-        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
 
         when(ticketRepository.findById(1L)).thenReturn(Optional.of(ticket));
 
@@ -106,6 +338,10 @@ class TicketServiceImplTest {
 
         verify(ticketRepository, times(1)).findById(1L);
         verify(ticketRepository, times(1)).delete(ticket);
+        verify(entityManagerFactory.getCache(), times(1)).evict(Ticket.class, 1L);
+        verify(outboxRepository, times(1)).save(argThat((TicketOutbox entry) -> entry.getOperation() == OutboxOperation.DELETE
+                && entry.getObjectKey().equals("tickets/Ticket_1.json")
+                && entry.getPayload() == null));
     }
 
     @Test
@@ -122,7 +358,7 @@ class TicketServiceImplTest {
 
     @Test
     void shouldThrowExceptionWhenUpdatingNonExistentTicket() {
-        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
 
         when(ticketRepository.findById(anyLong())).thenReturn(Optional.empty());
 
@@ -148,7 +384,7 @@ class TicketServiceImplTest {
 
     @Test
     void testGetTicketFromS3() throws Exception {
-        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
         ObjectMapper objectMapper = new ObjectMapper();
         String ticketJson = objectMapper.writeValueAsString(ticket);
         ResponseBytes<GetObjectResponse> responseBytes = ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), ticketJson.getBytes());
@@ -178,8 +414,8 @@ class TicketServiceImplTest {
 
     @Test
     void testGetAllTicketsFromS3() throws Exception {
-        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"));
-        Ticket ticket2 = new Ticket(2L, "Play", "B1", new BigDecimal("50.00"));
+        Ticket ticket1 = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket ticket2 = new Ticket(2L, "Play", "B1", new BigDecimal("50.00"), null);
         ObjectMapper objectMapper = new ObjectMapper();
         String ticketJson1 = objectMapper.writeValueAsString(ticket1);
         String ticketJson2 = objectMapper.writeValueAsString(ticket2);
@@ -193,8 +429,9 @@ class TicketServiceImplTest {
         ListObjectsV2Response listObjectsResponse = ListObjectsV2Response.builder().contents(s3Objects).build();
 
         when(amazonS3.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(listObjectsResponse);
-        when(amazonS3.getObjectAsBytes(any(GetObjectRequest.class)))
-                .thenReturn(responseBytes1)
+        when(amazonS3.getObjectAsBytes(argThat((GetObjectRequest request) -> request != null && request.key().equals("tickets/Ticket_1.json"))))
+                .thenReturn(responseBytes1);
+        when(amazonS3.getObjectAsBytes(argThat((GetObjectRequest request) -> request != null && request.key().equals("tickets/Ticket_2.json"))))
                 .thenReturn(responseBytes2);
 
         List<Ticket> retrievedTickets = ticketService.getAllTicketsFromS3();
@@ -207,6 +444,177 @@ class TicketServiceImplTest {
         verify(amazonS3, times(2)).getObjectAsBytes(any(GetObjectRequest.class));
     }
 
+    @Test
+    void testGetAllTicketsFromS3FollowsContinuationTokens() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ListObjectsV2Response firstPage = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("tickets/Ticket_1.json").build())
+                .isTruncated(true)
+                .nextContinuationToken("token-2")
+                .build();
+        ListObjectsV2Response secondPage = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("tickets/Ticket_2.json").build(),
+                        S3Object.builder().key("tickets/Ticket_3.json").build())
+                .isTruncated(false)
+                .build();
+        when(amazonS3.listObjectsV2(argThat((ListObjectsV2Request request) -> request != null && request.continuationToken() == null)))
+                .thenReturn(firstPage);
+        when(amazonS3.listObjectsV2(argThat((ListObjectsV2Request request) -> request != null && "token-2".equals(request.continuationToken()))))
+                .thenReturn(secondPage);
+        when(amazonS3.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0, GetObjectRequest.class).key();
+            if (key.equals("tickets/Ticket_3.json")) {
+                throw NoSuchKeyException.builder().message("deleted").build();
+            }
+            long id = Long.parseLong(key.replaceAll("\\D", ""));
+            Ticket ticket = new Ticket(id, "Concert", "A" + id, new BigDecimal("100.00"), null);
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), objectMapper.writeValueAsBytes(ticket));
+        });
+
+        List<Ticket> retrievedTickets = ticketService.getAllTicketsFromS3();
+
+        assertEquals(2, retrievedTickets.size());
+        assertEquals("A1", retrievedTickets.get(0).getSeat());
+        assertEquals("A2", retrievedTickets.get(1).getSeat());
+        verify(amazonS3, times(2)).listObjectsV2(any(ListObjectsV2Request.class));
+        verify(amazonS3, times(3)).getObjectAsBytes(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testGetTicketsPageFromS3PassesContinuationToken() throws Exception {
+        Ticket ticket = new Ticket(5L, "Concert", "A5", new BigDecimal("100.00"), null);
+        ListObjectsV2Response listing = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("tickets/Ticket_5.json").build())
+                .isTruncated(true)
+                .nextContinuationToken("token-3")
+                .build();
+        when(amazonS3.listObjectsV2(any(ListObjectsV2Request.class))).thenReturn(listing);
+        when(amazonS3.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), new ObjectMapper().writeValueAsBytes(ticket)));
+
+        CursorPage<Ticket> page = ticketService.getTicketsPageFromS3("token-2", 5000);
+
+        assertEquals(1, page.getSize());
+        assertEquals("A5", page.getContent().get(0).getSeat());
+        assertEquals("token-3", page.getNextCursor());
+        verify(amazonS3, times(1)).listObjectsV2(argThat((ListObjectsV2Request request) ->
+                "token-2".equals(request.continuationToken()) && request.maxKeys() == 1000));
+    }
+
+    @Test
+    void testGetTicketFromS3ServesFreshCacheEntry() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        S3TicketCache.CachedTicket entry = new S3TicketCache.CachedTicket(ticket, "\"etag-1\"", System.nanoTime());
+        when(ticketCache.get(1L)).thenReturn(entry);
+        when(ticketCache.isFresh(entry)).thenReturn(true);
+
+        assertEquals(ticket, ticketService.getTicketFromS3(1L));
+        verifyNoInteractions(amazonS3);
+    }
+
+    @Test
+    void testGetTicketFromS3RevalidatesStaleEntryWithIfNoneMatch() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        S3TicketCache.CachedTicket entry = new S3TicketCache.CachedTicket(ticket, "\"etag-1\"", 0L);
+        when(ticketCache.get(1L)).thenReturn(entry);
+        when(ticketCache.isFresh(entry)).thenReturn(false);
+        when(amazonS3.getObjectAsBytes(argThat((GetObjectRequest request) -> "\"etag-1\"".equals(request.ifNoneMatch()))))
+                .thenThrow(S3Exception.builder().statusCode(304).build());
+
+        assertEquals(ticket, ticketService.getTicketFromS3(1L));
+        verify(ticketCache, times(1)).revalidated(1L, entry);
+        verify(ticketCache, never()).put(anyLong(), any(Ticket.class), anyString(), anyLong());
+    }
+
+    @Test
+    void testGetTicketFromS3CachesObjectWithETag() throws Exception {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        byte[] json = new ObjectMapper().writeValueAsBytes(ticket);
+        when(amazonS3.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().eTag("\"etag-2\"").build(), json));
+
+        when(ticketCache.generation(1L)).thenReturn(7L);
+
+        assertEquals(ticket, ticketService.getTicketFromS3(1L));
+        verify(ticketCache, times(1)).put(1L, ticket, "\"etag-2\"", 7L);
+    }
+
+    @Test
+    void testGetTicketsFromS3MirrorWhenReady() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        when(ticketMirror.isReady()).thenReturn(true);
+        when(ticketMirror.read(1L)).thenReturn(Optional.of(ticket));
+        when(ticketMirror.readAll()).thenReturn(List.of(ticket));
+
+        assertEquals(ticket, ticketService.getTicketFromS3(1L));
+        assertEquals(List.of(ticket), ticketService.getAllTicketsFromS3());
+        verifyNoInteractions(amazonS3);
+    }
+
+    @Test
+    void testGetTicketsFromS3SegmentsWhenSnapshotIsActive() {
+        Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        when(segmentStore.isActive()).thenReturn(true);
+        when(segmentStore.read(1L)).thenReturn(Optional.of(ticket));
+        when(segmentStore.changedSinceSnapshot()).thenReturn(Set.of());
+        when(segmentStore.readAll()).thenReturn(List.of(ticket));
+
+        assertEquals(ticket, ticketService.getTicketFromS3(1L));
+        assertEquals(List.of(ticket), ticketService.getAllTicketsFromS3());
+        verifyNoInteractions(amazonS3);
+    }
+
+    @Test
+    void testTicketsChangedSinceTheSegmentSnapshotAreReadFromTheirObjects() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Ticket unchanged = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket stale = new Ticket(2L, "Concert", "B1", new BigDecimal("100.00"), null);
+        Ticket deleted = new Ticket(3L, "Concert", "C1", new BigDecimal("100.00"), null);
+        when(segmentStore.isActive()).thenReturn(true);
+        // 2 was updated, 3 deleted and 4 created after the snapshot
+        when(segmentStore.read(2L)).thenReturn(Optional.empty());
+        when(segmentStore.read(4L)).thenReturn(Optional.empty());
+        when(segmentStore.changedSinceSnapshot()).thenReturn(Set.of(2L, 3L, 4L));
+        when(segmentStore.readAll()).thenReturn(List.of(unchanged, stale, deleted));
+        when(amazonS3.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0, GetObjectRequest.class).key();
+            if (key.equals("tickets/Ticket_3.json")) {
+                throw NoSuchKeyException.builder().message("deleted").build();
+            }
+            long id = Long.parseLong(key.replaceAll("\\D", ""));
+            Ticket current = new Ticket(id, "Concert", "N" + id, new BigDecimal("100.00"), null);
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), objectMapper.writeValueAsBytes(current));
+        });
+
+        assertEquals("N2", ticketService.getTicketFromS3(2L).getSeat());
+        assertEquals("N4", ticketService.getTicketFromS3(4L).getSeat());
+        assertEquals(List.of("A1", "N2", "N4"),
+                ticketService.getAllTicketsFromS3().stream().map(Ticket::getSeat).toList());
+        verify(amazonS3, never()).listObjectsV2(any(ListObjectsV2Request.class));
+    }
+
+    @Test
+    void testTicketsChangedSinceTheMirrorSyncAreReadFromTheirObjects() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Ticket unchanged = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+        Ticket stale = new Ticket(2L, "Concert", "B1", new BigDecimal("100.00"), null);
+        when(ticketMirror.isReady()).thenReturn(true);
+        // 2 was updated after the last sync
+        when(ticketMirror.read(2L)).thenReturn(Optional.empty());
+        when(ticketMirror.changedSinceSync()).thenReturn(Set.of(2L));
+        when(ticketMirror.readAll()).thenReturn(List.of(unchanged, stale));
+        when(amazonS3.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            Ticket current = new Ticket(2L, "Concert", "B2", new BigDecimal("100.00"), null);
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().eTag("\"etag-2\"").build(),
+                    objectMapper.writeValueAsBytes(current));
+        });
+
+        assertEquals("B2", ticketService.getTicketFromS3(2L).getSeat());
+        assertEquals(List.of("A1", "B2"),
+                ticketService.getAllTicketsFromS3().stream().map(Ticket::getSeat).toList());
+        verify(amazonS3, never()).listObjectsV2(any(ListObjectsV2Request.class));
+    }
+
     @Test
     void shouldThrowExceptionWhenGettingAllTicketsFromS3Fails() {
         S3Exception s3Exception = (S3Exception) S3Exception.builder()
@@ -233,5 +641,11 @@ class TicketServiceImplTest {
         ticketService.deleteTicketFromS3(1L);
 
         verify(amazonS3, times(1)).deleteObject(any(DeleteObjectRequest.class));
+        verify(ticketCache, times(1)).invalidate(1L);
+    }
+
+    private void runTransactionsInline() {
+        when(transactionOperations.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 }
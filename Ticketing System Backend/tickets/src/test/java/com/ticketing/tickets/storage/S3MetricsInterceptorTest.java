@@ -0,0 +1,109 @@
+package com.ticketing.tickets.storage;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives a real S3 client against an in-process HTTP server: listings succeed, GETs of
+ * {@code missing.json} answer NoSuchKey, and HEAD requests fail with a 500.
+ */
+class S3MetricsInterceptorTest {
+
+    private static final String LISTING = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+            + "<Name>my-op-bucket</Name><Prefix>tickets/</Prefix><KeyCount>0</KeyCount>"
+            + "<MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated></ListBucketResult>";
+    private static final String NO_SUCH_KEY = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<Error><Code>NoSuchKey</Code><Message>The specified key does not exist.</Message></Error>";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer server;
+    private S3Client amazonS3;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            int status;
+            byte[] body;
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                status = 500;
+                body = new byte[0];
+            } else if (exchange.getRequestURI().getPath().endsWith("missing.json")) {
+                status = 404;
+                body = NO_SUCH_KEY.getBytes(StandardCharsets.UTF_8);
+            } else {
+                status = 200;
+                body = LISTING.getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        amazonS3 = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create("http://127.0.0.1:" + server.getAddress().getPort()))
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .addExecutionInterceptor(new S3MetricsInterceptor(meterRegistry))
+                        .retryStrategy(AwsRetryStrategy.doNotRetry())
+                        .build())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        amazonS3.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testCallsAreTimedByOperationAndOutcome() {
+        amazonS3.listObjectsV2(ListObjectsV2Request.builder().bucket("my-op-bucket").prefix("tickets/").build());
+        assertThrows(NoSuchKeyException.class, () -> amazonS3.getObjectAsBytes(builder -> builder
+                .bucket("my-op-bucket").key("tickets/missing.json")));
+
+        assertEquals(1, meterRegistry.get("tickets.s3.requests")
+                .tags("operation", "ListObjectsV2", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("tickets.s3.requests")
+                .tags("operation", "GetObject", "outcome", "not_found").timer().count());
+        assertNull(meterRegistry.find("tickets.s3.failures").counter());
+    }
+
+    @Test
+    void testFailedCallsAreCounted() {
+        HeadObjectRequest head = HeadObjectRequest.builder().bucket("my-op-bucket").key("tickets/Ticket_1.json").build();
+
+        assertThrows(S3Exception.class, () -> amazonS3.headObject(head));
+
+        assertEquals(1, meterRegistry.get("tickets.s3.requests")
+                .tags("operation", "HeadObject", "outcome", "error").timer().count());
+        assertEquals(1, meterRegistry.get("tickets.s3.failures")
+                .tags("operation", "HeadObject", "exception", "S3Exception").counter().count());
+    }
+}
@@ -0,0 +1,78 @@
+package com.ticketing.tickets.storage;
+
+import com.ticketing.tickets.entity.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3TicketCacheTest {
+
+    private final Ticket ticket = new Ticket(1L, "Concert", "A1", new BigDecimal("100.00"), null);
+
+    @Test
+    void testEntryIsFreshUntilRevalidationIsDue() {
+        S3TicketCache cache = new S3TicketCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
+        cache.put(1L, ticket, "\"etag-1\"", cache.generation(1L));
+
+        S3TicketCache.CachedTicket entry = cache.get(1L);
+        assertNotNull(entry);
+        assertEquals(ticket, entry.ticket());
+        assertEquals("\"etag-1\"", entry.eTag());
+        assertTrue(cache.isFresh(entry));
+    }
+
+    @Test
+    void testRevalidatedEntryBecomesFreshAgain() {
+        S3TicketCache cache = new S3TicketCache(new SimpleMeterRegistry(), 100, Duration.ZERO);
+        cache.put(1L, ticket, "\"etag-1\"", cache.generation(1L));
+        S3TicketCache.CachedTicket stale = cache.get(1L);
+        assertFalse(cache.isFresh(stale));
+
+        cache.revalidated(1L, stale);
+
+        assertNotSame(stale, cache.get(1L));
+        assertTrue(cache.get(1L).validatedAt() >= stale.validatedAt());
+    }
+
+    @Test
+    void testRevalidationDoesNotResurrectInvalidatedEntry() {
+        S3TicketCache cache = new S3TicketCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        cache.put(1L, ticket, "\"etag-1\"", cache.generation(1L));
+        S3TicketCache.CachedTicket entry = cache.get(1L);
+
+        cache.invalidate(1L);
+        cache.revalidated(1L, entry);
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void testFetchOverlappingAnInvalidationIsNotCached() {
+        S3TicketCache cache = new S3TicketCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        long generation = cache.generation(1L);
+
+        // a write lands while the GET is in flight
+        cache.invalidate(1L);
+        cache.put(1L, ticket, "\"etag-1\"", generation);
+
+        assertNull(cache.get(1L));
+
+        cache.put(1L, ticket, "\"etag-2\"", cache.generation(1L));
+        assertEquals("\"etag-2\"", cache.get(1L).eTag());
+    }
+
+    @Test
+    void testObjectsWithoutETagAreNotCached() {
+        S3TicketCache cache = new S3TicketCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
+        cache.put(1L, ticket, null, cache.generation(1L));
+
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,215 @@
+package com.ticketing.tickets.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.configuration.BlockingTaskExecutors;
+import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.repository.TicketOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class S3TicketMirrorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final S3Client amazonS3 = mock(S3Client.class);
+    private final TicketOutboxRepository outboxRepository = mock(TicketOutboxRepository.class);
+    // key -> body, the ETag is derived from the body
+    private final Map<String, byte[]> bucket = new TreeMap<>();
+    private final List<S3TicketMirror> mirrors = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        when(amazonS3.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            List<S3Object> contents = new ArrayList<>();
+            bucket.forEach((key, body) -> contents.add(S3Object.builder().key(key).eTag(eTag(body)).build()));
+            return ListObjectsV2Response.builder().contents(contents).isTruncated(false).build();
+        });
+        when(amazonS3.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation ->
+                ResponseBytes.fromByteArray(GetObjectResponse.builder().build(),
+                        bucket.get(invocation.getArgument(0, GetObjectRequest.class).key())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mirrors.forEach(S3TicketMirror::shutdown);
+    }
+
+    @Test
+    void testNotReadyBeforeFirstSync() {
+        assertFalse(mirror(DataSize.ofKilobytes(64)).isReady());
+    }
+
+    @Test
+    void testSyncMirrorsAllTicketObjects() throws Exception {
+        putTicket(2L, "B1");
+        putTicket(1L, "A1");
+        S3TicketMirror mirror = mirror(DataSize.ofKilobytes(64));
+
+        assertEquals(2, mirror.sync());
+
+        assertTrue(mirror.isReady());
+        assertEquals(List.of("A1", "B1"), mirror.readAll().stream().map(Ticket::getSeat).toList());
+        assertEquals("B1", mirror.read(2L).map(Ticket::getSeat).orElseThrow());
+        assertEquals(Optional.empty(), mirror.read(3L));
+    }
+
+    @Test
+    void testSyncOnlyDownloadsChangedObjectsAndDropsDeletedOnes() throws Exception {
+        putTicket(1L, "A1");
+        putTicket(2L, "B1");
+        putTicket(3L, "C1");
+        S3TicketMirror mirror = mirror(DataSize.ofKilobytes(64));
+        mirror.sync();
+        clearInvocations(amazonS3);
+
+        putTicket(2L, "B2");
+        bucket.remove("tickets/Ticket_3.json");
+
+        assertEquals(1, mirror.sync());
+        verify(amazonS3, times(1)).getObjectAsBytes(any(GetObjectRequest.class));
+        assertEquals(List.of("A1", "B2"), mirror.readAll().stream().map(Ticket::getSeat).toList());
+    }
+
+    @Test
+    void testTicketsChangedSinceTheSyncAreNotServed() throws Exception {
+        putTicket(1L, "A1");
+        putTicket(2L, "B1");
+        S3TicketMirror mirror = mirror(DataSize.ofKilobytes(64));
+        mirror.sync();
+        when(outboxRepository.existsChangeNotShippedBefore(eq(2L), any(LocalDateTime.class))).thenReturn(true);
+        when(outboxRepository.findTicketIdsNotShippedBefore(any(LocalDateTime.class))).thenReturn(Set.of(2L));
+
+        assertEquals("A1", mirror.read(1L).map(Ticket::getSeat).orElseThrow());
+        assertEquals(Optional.empty(), mirror.read(2L));
+        assertEquals(Set.of(2L), mirror.changedSinceSync());
+    }
+
+    @Test
+    void testNotReadyOnceTheLastSyncIsOlderThanTheOutboxRetention() throws Exception {
+        putTicket(1L, "A1");
+        S3TicketMirror mirror = new S3TicketMirror(amazonS3, objectMapper, new BlockingTaskExecutors(false),
+                outboxRepository, Duration.ofSeconds(30), true, directory, DataSize.ofKilobytes(64));
+        mirrors.add(mirror);
+
+        mirror.sync();
+
+        assertFalse(mirror.isReady());
+    }
+
+    @Test
+    void testIndexSurvivesRestart() throws Exception {
+        putTicket(1L, "A1");
+        mirror(DataSize.ofKilobytes(64)).sync();
+        clearInvocations(amazonS3);
+
+        S3TicketMirror restarted = mirror(DataSize.ofKilobytes(64));
+
+        assertTrue(restarted.isReady());
+        assertEquals("A1", restarted.read(1L).map(Ticket::getSeat).orElseThrow());
+        assertEquals(0, restarted.sync());
+        verify(amazonS3, never()).getObjectAsBytes(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void testFullFileIsCompacted() throws Exception {
+        putTicket(1L, "A1");
+        int recordSize = bucket.get("tickets/Ticket_1.json").length;
+        // room for three records: the second rewrite of ticket 1 only fits after compaction
+        S3TicketMirror mirror = mirror(DataSize.ofBytes(recordSize * 3L + 1));
+        mirror.sync();
+        putTicket(1L, "A2");
+        mirror.sync();
+        putTicket(1L, "A3");
+        mirror.sync();
+        putTicket(1L, "A4");
+
+        mirror.sync();
+
+        assertEquals("A4", mirror.read(1L).map(Ticket::getSeat).orElseThrow());
+        assertEquals(1, mirror.size());
+    }
+
+    @Test
+    void testCompactedFileSurvivesRestart() throws Exception {
+        putTicket(1L, "A1");
+        putTicket(2L, "B1");
+        int recordSize = bucket.get("tickets/Ticket_1.json").length;
+        S3TicketMirror mirror = mirror(DataSize.ofBytes(recordSize * 3L + 1));
+        mirror.sync();
+        putTicket(1L, "A2");
+        putTicket(2L, "B2");
+        mirror.sync();
+        clearInvocations(amazonS3);
+
+        S3TicketMirror restarted = mirror(DataSize.ofBytes(recordSize * 3L + 1));
+
+        assertEquals(List.of("A2", "B2"), restarted.readAll().stream().map(Ticket::getSeat).toList());
+        assertEquals(0, restarted.sync());
+        verify(amazonS3, never()).getObjectAsBytes(any(GetObjectRequest.class));
+        assertEquals(List.of(directory.resolve("tickets-1.dat")), dataFiles());
+    }
+
+    @Test
+    void testDataFileOfAnUnfinishedCompactionIsIgnored() throws Exception {
+        putTicket(1L, "A1");
+        mirror(DataSize.ofKilobytes(64)).sync();
+        // a compaction that crashed after writing its data file but before switching the index
+        Files.write(directory.resolve("tickets-1.dat"), new byte[]{'{', '}'});
+
+        S3TicketMirror restarted = mirror(DataSize.ofKilobytes(64));
+
+        assertEquals("A1", restarted.read(1L).map(Ticket::getSeat).orElseThrow());
+        assertEquals(List.of(directory.resolve("tickets-0.dat")), dataFiles());
+    }
+
+    private S3TicketMirror mirror(DataSize maxSize) {
+        S3TicketMirror mirror = new S3TicketMirror(amazonS3, objectMapper, new BlockingTaskExecutors(false),
+                outboxRepository, Duration.ofHours(1), true, directory, maxSize);
+        mirrors.add(mirror);
+        return mirror;
+    }
+
+    private void putTicket(Long id, String seat) throws Exception {
+        Ticket ticket = new Ticket(id, "Concert", seat, new BigDecimal("100.00"), null);
+        bucket.put("tickets/Ticket_" + id + ".json", objectMapper.writeValueAsBytes(ticket));
+    }
+
+    private List<Path> dataFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".dat")).sorted().toList();
+        }
+    }
+
+    private static String eTag(byte[] body) {
+        return "\"" + Arrays.hashCode(body) + "\"";
+    }
+}
@@ -0,0 +1,136 @@
+package com.ticketing.tickets.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class S3WriteBehindQueueTest {
+
+    private final S3Client amazonS3 = mock(S3Client.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final S3WriteBehindQueue queue = new S3WriteBehindQueue(amazonS3, meterRegistry, 1, 100, 3, Duration.ofSeconds(5));
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.shutdown();
+    }
+
+    @Test
+    void testWriteIsSentInBackground() {
+        queue.enqueuePut("bucket", "tickets/Ticket_1.json", bytes("v1"));
+
+        verify(amazonS3, timeout(1000).times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        assertEquals(0, queue.queueDepth());
+    }
+
+    @Test
+    void testPendingWritesToSameKeyAreCoalesced() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(amazonS3.putObject(argThat((PutObjectRequest request) -> request != null && request.key().equals("blocker")), any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    blocked.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return PutObjectResponse.builder().build();
+                });
+
+        // occupy the single worker so the next writes have to wait in the queue
+        queue.enqueuePut("bucket", "blocker", bytes("x"));
+        assertTrue(blocked.await(1, TimeUnit.SECONDS));
+        queue.enqueuePut("bucket", "tickets/Ticket_1.json", bytes("v1"));
+        queue.enqueuePut("bucket", "tickets/Ticket_1.json", bytes("v2"));
+        queue.enqueuePut("bucket", "tickets/Ticket_1.json", bytes("v3"));
+        assertEquals(1, queue.queueDepth());
+        assertEquals(1.0, meterRegistry.get("tickets.s3.write_behind.depth").gauge().value());
+        release.countDown();
+
+        verify(amazonS3, timeout(1000).times(1))
+                .putObject(argThat((PutObjectRequest request) -> request != null && request.key().equals("tickets/Ticket_1.json")), any(RequestBody.class));
+        verify(amazonS3, times(2)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void testFailedWriteIsRetriedThenDropped() {
+        when(amazonS3.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("unavailable").build());
+
+        queue.enqueuePut("bucket", "tickets/Ticket_1.json", bytes("v1"));
+
+        verify(amazonS3, timeout(5000).times(3)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(amazonS3, after(200).times(3)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        assertEquals(1.0, meterRegistry.get("tickets.s3.write_behind.failed").counter().count());
+    }
+
+    @Test
+    void testShutdownDrainsPendingWrites() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            queue.enqueuePut("bucket", "tickets/Ticket_" + i + ".json", bytes("v"));
+        }
+        queue.enqueueDelete("bucket", "tickets/Ticket_99.json");
+
+        queue.shutdown();
+
+        assertEquals(0, queue.queueDepth());
+        verify(amazonS3, times(20)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(amazonS3, times(1)).deleteObject(any(DeleteObjectRequest.class));
+    }
+
+    @Test
+    void testWriteEnqueuedAfterShutdownIsSentByTheCaller() throws InterruptedException {
+        queue.shutdown();
+
+        CompletableFuture<Void> done = queue.enqueuePut("bucket", "tickets/Ticket_1.json", bytes("v1"));
+
+        assertTrue(done.isDone());
+        assertFalse(done.isCompletedExceptionally());
+        verify(amazonS3, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void testWritesStillPendingWhenShutdownTimesOutFail() throws Exception {
+        S3WriteBehindQueue stalled = new S3WriteBehindQueue(amazonS3, meterRegistry, 1, 100, 3, Duration.ofMillis(100));
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(amazonS3.putObject(argThat((PutObjectRequest request) -> request != null && request.key().equals("blocker")), any(RequestBody.class)))
+                .thenAnswer(invocation -> {
+                    blocked.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return PutObjectResponse.builder().build();
+                });
+        stalled.enqueuePut("bucket", "blocker", bytes("x"));
+        assertTrue(blocked.await(1, TimeUnit.SECONDS));
+        CompletableFuture<Void> waiting = stalled.enqueuePut("bucket", "tickets/Ticket_1.json", bytes("v1"));
+
+        try {
+            stalled.shutdown();
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> waiting.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+            assertEquals(0, stalled.queueDepth());
+        } finally {
+            release.countDown();
+        }
+        verify(amazonS3, after(200).never())
+                .putObject(argThat((PutObjectRequest request) -> request != null && request.key().equals("tickets/Ticket_1.json")), any(RequestBody.class));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
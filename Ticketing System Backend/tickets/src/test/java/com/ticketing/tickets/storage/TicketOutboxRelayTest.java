@@ -0,0 +1,93 @@
+package com.ticketing.tickets.storage;
+
+import com.ticketing.tickets.entity.OutboxOperation;
+import com.ticketing.tickets.entity.TicketOutbox;
+import com.ticketing.tickets.repository.TicketOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TicketOutboxRelayTest {
+
+    @Mock
+    private TicketOutboxRepository outboxRepository;
+
+    @Mock
+    private S3WriteBehindQueue s3WriteBehindQueue;
+
+    @Mock
+    private S3TicketCache ticketCache;
+
+    private TicketOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new TicketOutboxRelay(outboxRepository, s3WriteBehindQueue, ticketCache, new SimpleMeterRegistry(),
+                10, Duration.ofSeconds(1), Duration.ofHours(1), true);
+    }
+
+    @Test
+    void testShippedRowsAreMarkedProcessed() {
+        TicketOutbox upsert = row(1L, OutboxOperation.UPSERT, "{\"id\":1}");
+        TicketOutbox delete = row(2L, OutboxOperation.DELETE, null);
+        when(outboxRepository.findByProcessedAtIsNullOrderByIdAsc(any(Pageable.class))).thenReturn(List.of(upsert, delete));
+        when(s3WriteBehindQueue.enqueuePut("my-op-bucket", "tickets/Ticket_1.json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(s3WriteBehindQueue.enqueueDelete("my-op-bucket", "tickets/Ticket_2.json"))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relay();
+
+        verify(outboxRepository, times(1)).markProcessed(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+        verify(ticketCache, times(1)).invalidate(1L);
+        verify(ticketCache, times(1)).invalidate(2L);
+    }
+
+    @Test
+    void testFailedRowsStayPending() {
+        TicketOutbox shipped = row(1L, OutboxOperation.UPSERT, "{\"id\":1}");
+        TicketOutbox failed = row(2L, OutboxOperation.UPSERT, "{\"id\":2}");
+        when(outboxRepository.findByProcessedAtIsNullOrderByIdAsc(any(Pageable.class))).thenReturn(List.of(shipped, failed));
+        when(s3WriteBehindQueue.enqueuePut(eq("my-op-bucket"), eq("tickets/Ticket_1.json"), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(s3WriteBehindQueue.enqueuePut(eq("my-op-bucket"), eq("tickets/Ticket_2.json"), any(byte[].class)))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().message("unavailable").build()));
+
+        relay.relay();
+
+        // only the row S3 accepted is marked, the failed one is read again by the next run
+        verify(outboxRepository, times(1)).markProcessed(eq(List.of(1L)), any(LocalDateTime.class));
+        verify(outboxRepository, times(1)).findByProcessedAtIsNullOrderByIdAsc(any(Pageable.class));
+        verify(ticketCache, times(1)).invalidate(1L);
+        verify(ticketCache, never()).invalidate(2L);
+    }
+
+    @Test
+    void testNothingToShip() {
+        when(outboxRepository.findByProcessedAtIsNullOrderByIdAsc(any(Pageable.class))).thenReturn(List.of());
+
+        relay.relay();
+
+        verifyNoInteractions(s3WriteBehindQueue);
+        verify(outboxRepository, never()).markProcessed(anyCollection(), any(LocalDateTime.class));
+    }
+
+    private static TicketOutbox row(Long ticketId, OutboxOperation operation, String payload) {
+        return new TicketOutbox(ticketId, ticketId, operation, "my-op-bucket", "tickets/Ticket_" + ticketId + ".json",
+                payload, LocalDateTime.now(), null);
+    }
+}
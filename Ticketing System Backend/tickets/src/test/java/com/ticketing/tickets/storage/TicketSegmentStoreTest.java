@@ -0,0 +1,156 @@
+package com.ticketing.tickets.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticketing.tickets.entity.Ticket;
+import com.ticketing.tickets.repository.TicketOutboxRepository;
+import com.ticketing.tickets.repository.TicketRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TicketSegmentStoreTest {
+
+    private final S3Client amazonS3 = mock(S3Client.class);
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final TicketOutboxRepository outboxRepository = mock(TicketOutboxRepository.class);
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final List<String> ranges = new ArrayList<>();
+    private TicketSegmentStore store;
+
+    @BeforeEach
+    void setUp() {
+        // in-memory bucket that honours ranged GETs
+        when(amazonS3.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            try (InputStream body = invocation.getArgument(1, RequestBody.class).contentStreamProvider().newStream()) {
+                objects.put(invocation.getArgument(0, PutObjectRequest.class).key(), body.readAllBytes());
+            }
+            return PutObjectResponse.builder().build();
+        });
+        when(amazonS3.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            byte[] object = objects.get(request.key());
+            if (object == null) {
+                throw NoSuchKeyException.builder().message(request.key()).build();
+            }
+            if (request.range() != null) {
+                ranges.add(request.range());
+                String[] bounds = request.range().substring("bytes=".length()).split("-");
+                object = Arrays.copyOfRange(object, Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]) + 1);
+            }
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), object);
+        });
+        when(amazonS3.deleteObject(any(DeleteObjectRequest.class))).thenAnswer(invocation -> {
+            objects.remove(invocation.getArgument(0, DeleteObjectRequest.class).key());
+            return null;
+        });
+        store = new TicketSegmentStore(amazonS3, ticketRepository, outboxRepository, new ObjectMapper(),
+                mock(EntityManager.class), TicketStorageLayout.SEGMENTS, DataSize.ofBytes(200), 4, Duration.ofMinutes(1),
+                Duration.ofHours(1));
+    }
+
+    @Test
+    void testInactiveUntilFirstSnapshot() {
+        assertFalse(store.isActive());
+    }
+
+    @Test
+    void testSnapshotPacksTicketsIntoBoundedSegments() {
+        when(ticketRepository.streamAllOrderById()).thenReturn(tickets(1, 25).stream());
+
+        SegmentManifest manifest = store.writeSnapshot();
+
+        assertTrue(store.isActive());
+        assertEquals(25, manifest.getTicketCount());
+        assertTrue(manifest.getSegments().size() > 1);
+        assertEquals(1, manifest.getSegments().get(0).getFirstId());
+        assertEquals(25, manifest.getSegments().get(manifest.getSegments().size() - 1).getLastId());
+        assertEquals(tickets(1, 25), store.readAll());
+        assertTrue(ranges.isEmpty());
+    }
+
+    @Test
+    void testSingleTicketIsReadWithOneRangedGet() {
+        when(ticketRepository.streamAllOrderById()).thenReturn(tickets(1, 25).stream());
+        store.writeSnapshot();
+
+        Optional<Ticket> ticket = store.read(18L);
+
+        assertTrue(ticket.isPresent());
+        assertEquals("A18", ticket.get().getSeat());
+        assertEquals(1, ranges.size());
+        assertEquals(Optional.empty(), store.read(99L));
+    }
+
+    @Test
+    void testNewSnapshotReplacesOldSegments() {
+        when(ticketRepository.streamAllOrderById())
+                .thenReturn(tickets(1, 10).stream())
+                .thenReturn(tickets(5, 8).stream());
+        SegmentManifest first = store.writeSnapshot();
+
+        SegmentManifest second = store.writeSnapshot();
+
+        assertTrue(second.getGeneration() > first.getGeneration());
+        first.getSegments().forEach(segment -> assertFalse(objects.containsKey(segment.getKey())));
+        assertEquals(tickets(5, 8), store.readAll());
+        assertEquals(Optional.empty(), store.read(2L));
+    }
+
+    @Test
+    void testTicketChangedSinceSnapshotIsNotReadFromIt() {
+        when(ticketRepository.streamAllOrderById()).thenReturn(tickets(1, 10).stream());
+        store.writeSnapshot();
+        when(outboxRepository.existsByTicketIdAndCreatedAtGreaterThanEqual(eq(3L), any(LocalDateTime.class)))
+                .thenReturn(true);
+        when(outboxRepository.findTicketIdsChangedSince(any(LocalDateTime.class))).thenReturn(Set.of(3L));
+
+        assertEquals(Optional.empty(), store.read(3L));
+        assertEquals("A4", store.read(4L).map(Ticket::getSeat).orElseThrow());
+        assertEquals(Set.of(3L), store.changedSinceSnapshot());
+        assertEquals(1, ranges.size());
+    }
+
+    @Test
+    void testSnapshotOlderThanTheOutboxRetentionIsInactive() {
+        when(ticketRepository.streamAllOrderById()).thenReturn(tickets(1, 10).stream());
+        store.writeSnapshot();
+        TicketSegmentStore withoutRetention = new TicketSegmentStore(amazonS3, ticketRepository, outboxRepository,
+                new ObjectMapper(), mock(EntityManager.class), TicketStorageLayout.SEGMENTS, DataSize.ofBytes(200), 4,
+                Duration.ofMinutes(1), Duration.ZERO);
+
+        assertTrue(store.isActive());
+        assertFalse(withoutRetention.isActive());
+    }
+
+    private static List<Ticket> tickets(long firstId, long lastId) {
+        return LongStream.rangeClosed(firstId, lastId)
+                .mapToObj(id -> new Ticket(id, "Concert", "A" + id, new BigDecimal("100.00"), null))
+                .toList();
+    }
+}
@@ -0,0 +1,75 @@
+package com.ticketing.tickets.support;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process stand-in for the external events API. Serves every request under
+ * {@code /api/events} with a configurable status, body and delay, so tests can drive the HTTP
+ * client into timeouts and server errors.
+ */
+public class EventsApiStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<Response> response = new AtomicReference<>(new Response(200, "[]", Duration.ZERO));
+
+    public EventsApiStub() throws IOException {
+        // a deep accept backlog so bursts of new client connections are not refused
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/api/events", exchange -> {
+            requests.incrementAndGet();
+            Response current = response.get();
+            try {
+                Thread.sleep(current.delay().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = current.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(current.status(), body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException e) {
+                // the client gave up waiting
+            }
+        });
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/events";
+    }
+
+    public void respond(int status, String body) {
+        response.set(new Response(status, body, Duration.ZERO));
+    }
+
+    public void respondSlowly(Duration delay, String body) {
+        response.set(new Response(200, body, delay));
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private record Response(int status, String body, Duration delay) {
+    }
+}
@@ -0,0 +1,272 @@
+package com.ticketing.tickets.support;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process, in-memory stand-in for S3, speaking the path-style REST API for the calls the
+ * application makes: PutObject, GetObject (with If-None-Match and byte ranges), HeadObject,
+ * DeleteObject and ListObjectsV2 with continuation tokens. ETags are MD5 hex digests, as S3 uses
+ * for single-part uploads, so the SDK's checksum validation passes. Signatures are not checked.
+ */
+public class S3StandIn implements AutoCloseable {
+
+    private static final String XML_NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "s3-stand-in");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, NavigableMap<String, StoredObject>> buckets = new ConcurrentHashMap<>();
+
+    public S3StandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public URI endpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    /**
+     * A client for this stand-in. Chunked payload signing is off, the same setting a real S3
+     * client can use, so uploads arrive as plain bodies.
+     */
+    public S3Client client() {
+        return S3Client.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(endpoint())
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("key", "secret")))
+                .serviceConfiguration(S3Configuration.builder().chunkedEncodingEnabled(false).build())
+                .build();
+    }
+
+    public int objectCount(String bucket, String prefix) {
+        NavigableMap<String, StoredObject> objects = buckets.get(bucket);
+        return objects == null ? 0 : objects.subMap(prefix, true, prefix + Character.MAX_VALUE, false).size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            int slash = path.indexOf('/', 1);
+            String bucket = slash < 0 ? path.substring(1) : path.substring(1, slash);
+            String key = slash < 0 ? "" : path.substring(slash + 1);
+            NavigableMap<String, StoredObject> objects = buckets.computeIfAbsent(bucket, name -> new ConcurrentSkipListMap<>());
+            String method = exchange.getRequestMethod();
+            if (key.isEmpty() && "GET".equals(method)) {
+                list(exchange, bucket, objects);
+            } else if ("PUT".equals(method)) {
+                StoredObject object = StoredObject.of(readBody(exchange));
+                objects.put(key, object);
+                exchange.getResponseHeaders().add("ETag", object.eTag());
+                send(exchange, 200, new byte[0]);
+            } else if ("DELETE".equals(method)) {
+                objects.remove(key);
+                send(exchange, 204, new byte[0]);
+            } else if ("GET".equals(method) || "HEAD".equals(method)) {
+                get(exchange, key, objects.get(key), "HEAD".equals(method));
+            } else {
+                send(exchange, 405, new byte[0]);
+            }
+        }
+    }
+
+    private void get(HttpExchange exchange, String key, StoredObject object, boolean headOnly) throws IOException {
+        if (object == null) {
+            send(exchange, 404, headOnly ? new byte[0] : error("NoSuchKey", "The specified key does not exist.", key));
+            return;
+        }
+        Headers headers = exchange.getResponseHeaders();
+        headers.add("ETag", object.eTag());
+        headers.add("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified().atOffset(ZoneOffset.UTC)));
+        if (object.eTag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            send(exchange, 304, new byte[0]);
+            return;
+        }
+        headers.add("Content-Type", "application/octet-stream");
+        byte[] body = object.body();
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring("bytes=".length()).split("-", 2);
+            int first = Integer.parseInt(bounds[0]);
+            int last = bounds[1].isEmpty() ? body.length - 1 : Math.min(Integer.parseInt(bounds[1]), body.length - 1);
+            headers.add("Content-Range", "bytes " + first + "-" + last + "/" + body.length);
+            body = Arrays.copyOfRange(body, first, last + 1);
+            status = 206;
+        }
+        if (headOnly) {
+            headers.add("Content-Length", String.valueOf(body.length));
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        send(exchange, status, body);
+    }
+
+    private void list(HttpExchange exchange, String bucket, NavigableMap<String, StoredObject> objects) throws IOException {
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        String prefix = query.getOrDefault("prefix", "");
+        int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        String after = query.getOrDefault("continuation-token", query.get("start-after"));
+        NavigableMap<String, StoredObject> matching = objects.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (after != null) {
+            matching = matching.tailMap(after, false);
+        }
+        StringBuilder contents = new StringBuilder();
+        int count = 0;
+        String lastKey = null;
+        for (Map.Entry<String, StoredObject> entry : matching.entrySet()) {
+            if (count == maxKeys) {
+                break;
+            }
+            StoredObject object = entry.getValue();
+            contents.append("<Contents><Key>").append(escape(entry.getKey())).append("</Key>")
+                    .append("<LastModified>").append(DateTimeFormatter.ISO_INSTANT.format(object.lastModified())).append("</LastModified>")
+                    .append("<ETag>").append(escape(object.eTag())).append("</ETag>")
+                    .append("<Size>").append(object.body().length).append("</Size>")
+                    .append("<StorageClass>STANDARD</StorageClass></Contents>");
+            lastKey = entry.getKey();
+            count++;
+        }
+        boolean truncated = lastKey != null && matching.higherKey(lastKey) != null;
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<ListBucketResult xmlns=\"").append(XML_NAMESPACE).append("\">")
+                .append("<Name>").append(escape(bucket)).append("</Name>")
+                .append("<Prefix>").append(escape(prefix)).append("</Prefix>")
+                .append("<KeyCount>").append(count).append("</KeyCount>")
+                .append("<MaxKeys>").append(maxKeys).append("</MaxKeys>")
+                .append("<IsTruncated>").append(truncated).append("</IsTruncated>")
+                .append(contents);
+        if (truncated) {
+            // the last key returned doubles as the continuation token
+            xml.append("<NextContinuationToken>").append(escape(lastKey)).append("</NextContinuationToken>");
+        }
+        xml.append("</ListBucketResult>");
+        exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        send(exchange, 200, xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        String contentSha = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        return contentSha != null && contentSha.startsWith("STREAMING-") ? decodeChunked(body) : body;
+    }
+
+    // aws-chunked framing: "<hex size>;chunk-signature=...\r\n<data>\r\n", ending with a zero-size chunk
+    private static byte[] decodeChunked(byte[] framed) {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream(framed.length);
+        int position = 0;
+        while (position < framed.length) {
+            int lineEnd = indexOfCrlf(framed, position);
+            String header = new String(framed, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int size = Integer.parseInt(header.split(";", 2)[0].trim(), 16);
+            if (size == 0) {
+                break;
+            }
+            decoded.write(framed, lineEnd + 2, size);
+            position = lineEnd + 2 + size + 2;
+        }
+        return decoded.toByteArray();
+    }
+
+    private static int indexOfCrlf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length - 1; i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return bytes.length;
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            String[] parts = pair.split("=", 2);
+            parameters.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                    parts.length == 2 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+        }
+        return parameters;
+    }
+
+    private static byte[] error(String code, String message, String key) {
+        return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code><Message>" + message
+                + "</Message><Key>" + escape(key) + "</Key></Error>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (status == 204 || status == 304 || body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        if (status >= 400) {
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private record StoredObject(byte[] body, String eTag, Instant lastModified) {
+
+        static StoredObject of(byte[] body) {
+            try {
+                String md5 = HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(body));
+                return new StoredObject(body, "\"" + md5 + "\"", Instant.now());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ticketing.tickets.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3StandInTest {
+
+    private static final String BUCKET = "my-op-bucket";
+
+    private S3StandIn standIn;
+    private S3Client amazonS3;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = new S3StandIn();
+        amazonS3 = standIn.client();
+    }
+
+    @AfterEach
+    void tearDown() {
+        amazonS3.close();
+        standIn.close();
+    }
+
+    @Test
+    void testPutThenGetRoundTrips() {
+        PutObjectResponse put = amazonS3.putObject(builder -> builder.bucket(BUCKET).key("tickets/Ticket_1.json"),
+                RequestBody.fromString("{\"id\":1}"));
+
+        ResponseBytes<GetObjectResponse> object = amazonS3.getObjectAsBytes(builder -> builder
+                .bucket(BUCKET).key("tickets/Ticket_1.json"));
+
+        assertEquals("{\"id\":1}", object.asString(StandardCharsets.UTF_8));
+        assertEquals(put.eTag(), object.response().eTag());
+        assertEquals(1, standIn.objectCount(BUCKET, "tickets/"));
+    }
+
+    @Test
+    void testConditionalGetAnswersNotModified() {
+        String eTag = amazonS3.putObject(builder -> builder.bucket(BUCKET).key("tickets/Ticket_1.json"),
+                RequestBody.fromString("{\"id\":1}")).eTag();
+
+        S3Exception notModified = assertThrows(S3Exception.class, () -> amazonS3.getObjectAsBytes(builder -> builder
+                .bucket(BUCKET).key("tickets/Ticket_1.json").ifNoneMatch(eTag)));
+
+        assertEquals(304, notModified.statusCode());
+    }
+
+    @Test
+    void testRangedGetReturnsTheRequestedBytes() {
+        amazonS3.putObject(builder -> builder.bucket(BUCKET).key("segments/0.bin"), RequestBody.fromString("0123456789"));
+
+        ResponseBytes<GetObjectResponse> range = amazonS3.getObjectAsBytes(builder -> builder
+                .bucket(BUCKET).key("segments/0.bin").range("bytes=2-5"));
+
+        assertEquals("2345", range.asString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testMissingAndDeletedKeysAreNotFound() {
+        amazonS3.putObject(builder -> builder.bucket(BUCKET).key("tickets/Ticket_1.json"), RequestBody.fromString("{}"));
+        amazonS3.deleteObject(builder -> builder.bucket(BUCKET).key("tickets/Ticket_1.json"));
+
+        assertThrows(NoSuchKeyException.class, () -> amazonS3.getObjectAsBytes(builder -> builder
+                .bucket(BUCKET).key("tickets/Ticket_1.json")));
+        assertThrows(NoSuchKeyException.class, () -> amazonS3.getObjectAsBytes(builder -> builder
+                .bucket(BUCKET).key("tickets/Ticket_2.json")));
+    }
+
+    @Test
+    void testListingPagesThroughThePrefix() {
+        for (int i = 0; i < 5; i++) {
+            String key = "tickets/Ticket_" + i + ".json";
+            amazonS3.putObject(builder -> builder.bucket(BUCKET).key(key), RequestBody.fromString("{}"));
+        }
+        amazonS3.putObject(builder -> builder.bucket(BUCKET).key("segments/0.bin"), RequestBody.fromString("{}"));
+
+        List<String> keys = amazonS3.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                        .bucket(BUCKET).prefix("tickets/").maxKeys(2).build())
+                .contents().stream()
+                .map(S3Object::key)
+                .toList();
+
+        assertEquals(List.of("tickets/Ticket_0.json", "tickets/Ticket_1.json", "tickets/Ticket_2.json",
+                "tickets/Ticket_3.json", "tickets/Ticket_4.json"), keys);
+    }
+}
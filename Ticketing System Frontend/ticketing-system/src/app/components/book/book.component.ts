@@ -1,6 +1,6 @@
 import { Component, OnInit } from '@angular/core';
 import { TicketService } from '../../services/ticket.service';
-import { Booking, Ticket } from '../../data-types';
+import { SeatHold, Ticket } from '../../data-types';
 import { Router, RouterModule } from '@angular/router';
 import { FormsModule } from '@angular/forms';
 import { CommonModule } from '@angular/common';
@@ -17,6 +17,7 @@ export class BookComponent implements OnInit {
   tickets: Ticket[] = [];
   user: string = '';
   selectedTicket: Ticket | null = null;
+  hold: SeatHold | null = null;
 
   constructor(private ticketService: TicketService, private bookingService: BookingService, private router: Router) { }
 
@@ -31,32 +32,39 @@ export class BookComponent implements OnInit {
   }
 
   showBookingForm(ticket: Ticket): void {
-    this.selectedTicket = ticket;
+    // Reserve the seat while the user fills in the form; the server releases it after the TTL
+    this.bookingService.holdTicket(ticket.id).subscribe(
+      hold => {
+        this.hold = hold;
+        this.selectedTicket = ticket;
+      },
+      error => {
+        if (error.status === 409) {
+          alert('This ticket is already booked or being booked by someone else.');
+        } else {
+          console.error('Error holding ticket:', error);
+          alert('Failed to reserve ticket. Please try again.');
+        }
+      }
+    );
   }
 
   bookTicket(): void {
-    if (!this.user || !this.selectedTicket) {
+    if (!this.user || !this.selectedTicket || !this.hold) {
       alert('Please provide user information.');
       return;
     }
 
-    const booking: Booking = {
-      id: 0,
-      ticket: this.selectedTicket,
-      user: this.user,
-      bookingDate: new Date().toISOString()
-    };
-
-    this.bookingService.createBooking(booking).subscribe(
+    this.bookingService.confirmHold(this.hold.holdId, this.user).subscribe(
       response => {
         alert('Booking done successfully!');
-        this.selectedTicket = null;
-        this.user = '';
+        this.resetForm();
         this.loadTickets();
       },
       error => {
-        if (error.status === 409) {
-          alert('Booking already exists for this user and ticket.');
+        if (error.status === 404) {
+          alert('Your reservation expired. Please select the ticket again.');
+          this.resetForm();
         } else {
           console.error('Error creating booking:', error);
           alert('Failed to book ticket. Please try again.');
@@ -66,6 +74,16 @@ export class BookComponent implements OnInit {
   }
 
   cancelBooking(): void {
+    if (this.hold) {
+      this.bookingService.releaseHold(this.hold.holdId).subscribe({
+        error: error => console.error('Error releasing hold:', error)
+      });
+    }
+    this.resetForm();
+  }
+
+  private resetForm(): void {
+    this.hold = null;
     this.selectedTicket = null;
     this.user = '';
   }
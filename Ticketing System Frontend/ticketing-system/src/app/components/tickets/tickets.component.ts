@@ -88,7 +88,13 @@ export class TicketsComponent implements OnInit {
       },
       error: (err) => {
         console.error('Error updating ticket', err);
-        alert('Failed to update ticket. Please try again.');
+        if (err.status === 409 || err.status === 412) {
+          alert('This ticket was changed by someone else. The latest version has been reloaded.');
+          this.editingTicketId = null;
+          this.loadTickets();
+        } else {
+          alert('Failed to update ticket. Please try again.');
+        }
       }
     });
   }
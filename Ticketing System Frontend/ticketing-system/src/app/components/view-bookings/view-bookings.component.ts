@@ -1,5 +1,5 @@
 import { Component } from '@angular/core';
-import { Booking } from '../../data-types';
+import { BookingSummary } from '../../data-types';
 import { BookingService } from '../../services/booking.service';
 import { RouterModule } from '@angular/router';
 import { FormsModule } from '@angular/forms';
@@ -13,8 +13,8 @@ import { CommonModule } from '@angular/common';
   styleUrl: './view-bookings.component.css'
 })
 export class ViewBookingsComponent {
-  bookings: Booking[] = [];
-  filteredBookings: Booking[] = [];
+  bookings: BookingSummary[] = [];
+  filteredBookings: BookingSummary[] = [];
   filterUser: string = '';
 
   constructor(private bookingService: BookingService) { }
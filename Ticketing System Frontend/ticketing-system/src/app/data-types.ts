@@ -3,6 +3,7 @@ export interface Ticket {
     event: string;
     seat: string;
     price: number;
+    version?: number; // set by the server, sent back as If-Match when the ticket is updated
   }
 
   export interface Booking {
@@ -15,4 +16,21 @@ export interface Ticket {
     };
     user: string;
     bookingDate: string; // This will be a string in ISO format
+  }
+
+  // flattened booking returned by the booking listings
+  export interface BookingSummary {
+    id: number;
+    user: string;
+    bookingDate: string;
+    ticketId: number;
+    event: string;
+    seat: string;
+    price: number;
+  }
+
+  export interface SeatHold {
+    holdId: string;
+    ticket: Ticket;
+    expiresAt: string; // ISO instant after which the hold is released
   }
\ No newline at end of file
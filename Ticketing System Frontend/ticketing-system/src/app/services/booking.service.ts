@@ -1,7 +1,7 @@
 import { HttpClient } from '@angular/common/http';
 import { Injectable } from '@angular/core';
 import { Observable } from 'rxjs';
-import { Booking } from '../data-types';
+import { Booking, BookingSummary, SeatHold } from '../data-types';
 
 @Injectable({
   providedIn: 'root'
@@ -16,15 +16,27 @@ export class BookingService {
     return this.http.post<Booking>(this.baseUrl, booking);
   }
 
-  getAllBookings(): Observable<Booking[]> {
-    return this.http.get<Booking[]>(this.baseUrl);
+  getAllBookings(): Observable<BookingSummary[]> {
+    return this.http.get<BookingSummary[]>(this.baseUrl);
   }
 
   getBookingById(id: number): Observable<Booking> {
     return this.http.get<Booking>(`${this.baseUrl}/${id}`);
   }
 
-  getBookingsByUser(user: string): Observable<Booking[]> {
-    return this.http.get<Booking[]>(`${this.baseUrl}/user/${user}`);
+  getBookingsByUser(user: string): Observable<BookingSummary[]> {
+    return this.http.get<BookingSummary[]>(`${this.baseUrl}/user/${user}`);
+  }
+
+  holdTicket(ticketId: number): Observable<SeatHold> {
+    return this.http.post<SeatHold>(`${this.baseUrl}/holds`, null, { params: { ticketId } });
+  }
+
+  confirmHold(holdId: string, user: string): Observable<Booking> {
+    return this.http.post<Booking>(`${this.baseUrl}/holds/${holdId}/confirm`, { user });
+  }
+
+  releaseHold(holdId: string): Observable<string> {
+    return this.http.delete<string>(`${this.baseUrl}/holds/${holdId}`, { responseType: 'text' as 'json' });
   }
 }
@@ -1,4 +1,4 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { Injectable } from '@angular/core';
 import { Observable } from 'rxjs';
 import { Ticket } from '../data-types';
@@ -19,8 +19,12 @@ export class TicketService {
     return this.http.post<Ticket>(this.baseUrl, ticket);
   }
 
+  // conditional on the version that was loaded: the server answers 412 if the ticket changed since
   updateTicket(id: number, ticket: Ticket): Observable<Ticket> {
-    return this.http.put<Ticket>(`${this.baseUrl}/${id}`, ticket);
+    const headers = ticket.version === undefined
+      ? new HttpHeaders()
+      : new HttpHeaders({ 'If-Match': `"ticket-${id}-${ticket.version}"` });
+    return this.http.put<Ticket>(`${this.baseUrl}/${id}`, ticket, { headers });
   }
 
   deleteTicket(id: number): Observable<string> {